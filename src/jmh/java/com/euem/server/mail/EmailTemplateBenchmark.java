@@ -0,0 +1,67 @@
+package com.euem.server.mail;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render throughput of a precompiled template against the String.format path EmailService used before.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class EmailTemplateBenchmark {
+
+    private static final int EXPIRY_MINUTES = 15;
+
+    private EmailTemplate textTemplate;
+
+    private EmailTemplate htmlTemplate;
+
+    private String otpCode;
+
+    @Setup
+    public void setUp() throws IOException {
+        textTemplate = EmailTemplate.compile(load("templates/email/email-verification.en.txt"), false);
+        htmlTemplate = EmailTemplate.compile(load("templates/email/email-verification.en.html"), true);
+        otpCode = String.format("%06d", ThreadLocalRandom.current().nextInt(1_000_000));
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format(
+            "Welcome! Please use the following code to verify your email address:\n\n" +
+            "Verification Code: %s\n\n" +
+            "This code will expire in %d minutes.\n\n" +
+            "If you didn't create an account, please ignore this email.",
+            otpCode, EXPIRY_MINUTES
+        );
+    }
+
+    @Benchmark
+    public String compiledText() {
+        return textTemplate.render(Map.of("code", otpCode, "expiryMinutes", String.valueOf(EXPIRY_MINUTES)));
+    }
+
+    @Benchmark
+    public void compiledTextAndHtml(Blackhole blackhole) {
+        Map<String, String> values = Map.of("code", otpCode, "expiryMinutes", String.valueOf(EXPIRY_MINUTES));
+        blackhole.consume(textTemplate.render(values));
+        blackhole.consume(htmlTemplate.render(values));
+    }
+
+    private static String load(String path) throws IOException {
+        try (InputStream in = EmailTemplateBenchmark.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IOException("Template not found on classpath: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
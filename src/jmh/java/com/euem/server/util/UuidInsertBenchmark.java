@@ -0,0 +1,95 @@
+package com.euem.server.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput and primary key index size for v4 against v7 keys on a real PostgreSQL. The table is
+ * preloaded so the index no longer fits in a few pages; the index size is printed at the end of each
+ * trial. Connects to BENCH_DB_URL / BENCH_DB_USER / BENCH_DB_PASSWORD, defaulting to the local dev
+ * database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"4", "7"})
+    private int version;
+
+    @Param({"500000"})
+    private int preloadRows;
+
+    private Connection connection;
+
+    private PreparedStatement insert;
+
+    private String table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+            env("BENCH_DB_URL", "jdbc:postgresql://localhost:5432/euem_db"),
+            env("BENCH_DB_USER", "euem_user"),
+            env("BENCH_DB_PASSWORD", "euem_password"));
+        table = "uuid_insert_bench_v" + version;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id uuid PRIMARY KEY, " +
+                "created_at timestamp NOT NULL DEFAULT now(), payload varchar(64) NOT NULL)");
+        }
+        insert = connection.prepareStatement("INSERT INTO " + table + " (id, payload) VALUES (?, ?)");
+        connection.setAutoCommit(false);
+        for (int i = 0; i < preloadRows; i += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT pg_relation_size('" + table + "_pkey'), (SELECT count(*) FROM " + table + ")")) {
+                rs.next();
+                System.out.printf("%nv%d: %d rows, primary key index %d kB%n",
+                    version, rs.getLong(2), rs.getLong(1) / 1024);
+            }
+            statement.execute("DROP TABLE " + table);
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insert() throws SQLException {
+        insertBatch();
+    }
+
+    private void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            UUID id = UuidGenerator.generate(version);
+            insert.setObject(1, id);
+            insert.setString(2, "user-" + id);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value != null ? value : fallback;
+    }
+}
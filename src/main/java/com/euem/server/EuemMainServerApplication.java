@@ -3,11 +3,17 @@ package com.euem.server;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Map;
+
 @SpringBootApplication
 public class EuemMainServerApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(EuemMainServerApplication.class, args);
+        SpringApplication application = new SpringApplication(EuemMainServerApplication.class);
+        // Behind a reverse proxy, getRemoteAddr() is the client from X-Forwarded-For rather than the proxy;
+        // Tomcat only honours the header from internal proxy addresses, so direct clients cannot spoof it
+        application.setDefaultProperties(Map.of("server.forward-headers-strategy", "native"));
+        application.run(args);
     }
 
 }
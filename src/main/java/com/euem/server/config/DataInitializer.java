@@ -1,30 +1,53 @@
 package com.euem.server.config;
 
 import com.euem.server.entity.Role;
-import com.euem.server.repository.RoleRepository;
+import com.euem.server.entity.User;
+import com.euem.server.service.RoleRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
 @Component
 public class DataInitializer implements CommandLineRunner {
-    
+
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+
     @Autowired
-    private RoleRepository roleRepository;
-    
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Override
     public void run(String... args) throws Exception {
-        // Initialize default roles if they don't exist
-        if (roleRepository.findByName(Role.RoleName.USER).isEmpty()) {
-            Role userRole = new Role();
-            userRole.setName(Role.RoleName.USER);
-            roleRepository.save(userRole);
-        }
-        
-        if (roleRepository.findByName(Role.RoleName.ADMIN).isEmpty()) {
-            Role adminRole = new Role();
-            adminRole.setName(Role.RoleName.ADMIN);
-            roleRepository.save(adminRole);
+        // Default roles are seeded by RoleRegistry when it loads
+        backfillRoleMasks();
+    }
+
+    // Users created before role_mask existed only have user_roles rows; runs once per user and is a no-op afterwards
+    private void backfillRoleMasks() {
+        String bits = Arrays.stream(Role.RoleName.values())
+            .map(role -> "WHEN '" + roleRegistry.get(role).getId() + "' THEN " + role.bit())
+            .collect(Collectors.joining(" "));
+        int updated = jdbcTemplate.update(
+            "UPDATE users u SET role_mask = m.mask FROM (" +
+            "SELECT user_id, bit_or(CASE CAST(role_id AS text) " + bits + " ELSE 0 END) AS mask " +
+            "FROM user_roles GROUP BY user_id) m " +
+            "WHERE u.id = m.user_id AND u.role_mask = 0");
+        if (updated > 0) {
+            // Written behind Hibernate's back, so cached users would keep the old mask
+            entityManagerFactory.getCache().evict(User.class);
+            log.info("Backfilled role_mask for {} users from user_roles", updated);
         }
     }
 }
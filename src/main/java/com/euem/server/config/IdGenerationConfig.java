@@ -0,0 +1,23 @@
+package com.euem.server.config;
+
+import com.euem.server.util.UuidIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdGenerationConfig {
+	
+	// 7 for time-ordered keys that append to the primary key index, 4 for fully random ones
+	@Value("${app.ids.uuid-version:7}")
+	private int uuidVersion;
+	
+	@Bean
+	public HibernatePropertiesCustomizer uuidVersionCustomizer() {
+		if (uuidVersion != 4 && uuidVersion != 7) {
+			throw new IllegalStateException("app.ids.uuid-version must be 4 or 7, was " + uuidVersion);
+		}
+		return properties -> properties.put(UuidIdGenerator.VERSION_SETTING, String.valueOf(uuidVersion));
+	}
+}
@@ -0,0 +1,94 @@
+package com.euem.server.config;
+
+import com.euem.server.mail.RelayHealth;
+import com.euem.server.mail.SmtpRelayRouter;
+import com.euem.server.mail.SmtpTransportPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+@Configuration
+public class MailConfig {
+
+	@Autowired
+	private JavaMailSender mailSender;
+
+	@Autowired
+	private MailRelayProperties relayProperties;
+
+	@Value("${app.mail.pool.max-connections:4}")
+	private int maxConnections;
+
+	@Value("${app.mail.pool.max-messages-per-connection:100}")
+	private int maxMessagesPerConnection;
+
+	@Value("${app.mail.pool.idle-timeout-seconds:60}")
+	private long idleTimeoutSeconds;
+
+	// Connections idle for less than this are handed out without a NOOP round trip
+	@Value("${app.mail.pool.validate-after-idle-ms:2000}")
+	private long validateAfterIdleMs;
+
+	@Value("${app.mail.pool.borrow-timeout-ms:10000}")
+	private long borrowTimeoutMs;
+
+	// Without app.mail.relays the single server Spring Boot configured from spring.mail.* is used
+	@Bean
+	public SmtpRelayRouter smtpRelayRouter() {
+		List<SmtpRelayRouter.Relay> relays = new ArrayList<>();
+		if (relayProperties.getRelays().isEmpty()) {
+			if (!(mailSender instanceof JavaMailSenderImpl sender)) {
+				throw new IllegalStateException("JavaMailSender is not an instance of JavaMailSenderImpl");
+			}
+			relays.add(relay(sender.getHost() + ":" + sender.getPort(), 1.0, sender));
+		} else {
+			for (MailRelayProperties.Relay config : relayProperties.getRelays()) {
+				JavaMailSenderImpl sender = new JavaMailSenderImpl();
+				sender.setHost(config.getHost());
+				sender.setPort(config.getPort());
+				sender.setProtocol(config.getProtocol());
+				sender.setUsername(config.getUsername());
+				sender.setPassword(config.getPassword());
+				Properties javaMailProperties = new Properties();
+				javaMailProperties.putAll(config.getProperties());
+				sender.setJavaMailProperties(javaMailProperties);
+
+				String name = config.getName() != null ? config.getName() : config.getHost() + ":" + config.getPort();
+				relays.add(relay(name, config.getWeight(), sender));
+			}
+		}
+		return new SmtpRelayRouter(relays);
+	}
+
+	private SmtpRelayRouter.Relay relay(String name, double weight, JavaMailSenderImpl sender) {
+		SmtpTransportPool pool = new SmtpTransportPool(
+			name,
+			sender.getSession(),
+			sender.getProtocol(),
+			sender.getHost(),
+			sender.getPort(),
+			sender.getUsername(),
+			sender.getPassword(),
+			poolSettings()
+		);
+		return new SmtpRelayRouter.Relay(name, weight, pool, new RelayHealth(relayProperties.getHealth()));
+	}
+
+	private SmtpTransportPool.Settings poolSettings() {
+		return new SmtpTransportPool.Settings(
+			maxConnections,
+			maxMessagesPerConnection,
+			Duration.ofSeconds(idleTimeoutSeconds),
+			Duration.ofMillis(validateAfterIdleMs),
+			Duration.ofMillis(borrowTimeoutMs)
+		);
+	}
+}
@@ -0,0 +1,68 @@
+package com.euem.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SMTP relays mail is spread across. When no relay is listed the single server configured under
+ * {@code spring.mail} is used.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.mail")
+@Data
+public class MailRelayProperties {
+
+    private List<Relay> relays = new ArrayList<>();
+
+    private Health health = new Health();
+
+    @Data
+    public static class Relay {
+
+        private String name;
+
+        private String host;
+
+        private int port = 587;
+
+        private String protocol = "smtp";
+
+        private String username;
+
+        private String password;
+
+        // Share of traffic relative to the other relays while all are equally healthy
+        private double weight = 1.0;
+
+        // JavaMail session properties, e.g. mail.smtp.auth and mail.smtp.starttls.enable
+        private Map<String, String> properties = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Health {
+
+        // Weight of the newest sample in the moving averages of latency and error rate
+        private double ewmaAlpha = 0.2;
+
+        // Consecutive failed sends that eject a relay
+        private int failureThreshold = 3;
+
+        // Error rate that ejects a relay once it has seen at least min-samples sends
+        private double errorRateThreshold = 0.5;
+
+        private int minSamples = 10;
+
+        // How long an ejected relay is left alone before a single probe send is let through
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        // Floor for the latency used in scoring so an idle relay does not get all traffic
+        private Duration minLatency = Duration.ofMillis(10);
+    }
+}
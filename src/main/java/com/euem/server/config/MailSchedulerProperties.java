@@ -0,0 +1,62 @@
+package com.euem.server.config;
+
+import com.euem.server.entity.EmailOutboxMessage;
+import com.euem.server.entity.VerificationToken;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outgoing mail throttling per recipient domain and dispatch priority per token type. Domains containing
+ * dots need the bracket notation, e.g. {@code app.mail.scheduler.domains.[gmail.com].capacity=120}.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.mail.scheduler")
+@Data
+public class MailSchedulerProperties {
+
+    // Applies to every domain without its own entry
+    private DomainLimit defaultLimit = new DomainLimit(60, Duration.ofMinutes(1));
+
+    private Map<String, DomainLimit> domains = new LinkedHashMap<>();
+
+    // Fraction of a domain's capacity NORMAL mail may use; the rest stays free for URGENT mail
+    private double normalShare = 0.8;
+
+    private Map<VerificationToken.TokenType, EmailOutboxMessage.Priority> priorities =
+        new EnumMap<>(VerificationToken.TokenType.class);
+
+    // Upper bound on tracked domains
+    private int maxDomains = 10_000;
+
+    private Duration backlogRefresh = Duration.ofSeconds(15);
+
+    // Domains beyond the largest backlogs are reported together as "other"
+    private int maxReportedDomains = 20;
+
+    public MailSchedulerProperties() {
+        priorities.put(VerificationToken.TokenType.PASSWORD_RESET, EmailOutboxMessage.Priority.URGENT);
+        priorities.put(VerificationToken.TokenType.EMAIL_CHANGE, EmailOutboxMessage.Priority.URGENT);
+        priorities.put(VerificationToken.TokenType.EMAIL_VERIFICATION, EmailOutboxMessage.Priority.NORMAL);
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class DomainLimit {
+
+        // Messages allowed per domain within period
+        private int capacity = 60;
+        private Duration period = Duration.ofMinutes(1);
+
+        public DomainLimit(int capacity, Duration period) {
+            this.capacity = capacity;
+            this.period = period;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.euem.server.config;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-endpoint limits for {@code /auth/**}, keyed by the endpoint name under {@code /auth}
+ * (e.g. {@code app.rate-limit.endpoints.login.ip-capacity=20}).
+ */
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Data
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Upper bound on tracked keys across all endpoints, for client IPs and for target emails each
+    private int maxKeys = 100_000;
+
+    private Map<String, EndpointLimit> endpoints = new LinkedHashMap<>();
+
+    public RateLimitProperties() {
+        endpoints.put("login", new EndpointLimit(20, Duration.ofMinutes(1), 10, Duration.ofMinutes(1)));
+        endpoints.put("register", new EndpointLimit(10, Duration.ofMinutes(1), 5, Duration.ofMinutes(1)));
+        endpoints.put("resend-otp", new EndpointLimit(10, Duration.ofMinutes(1), 3, Duration.ofMinutes(1)));
+        endpoints.put("verify-email", new EndpointLimit(20, Duration.ofMinutes(1), 10, Duration.ofMinutes(1)));
+        endpoints.put("refresh", new EndpointLimit(30, Duration.ofMinutes(1), 0, Duration.ofMinutes(1)));
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class EndpointLimit {
+
+        // Requests allowed per client IP within ipPeriod; 0 disables the check
+        private int ipCapacity = 20;
+        private Duration ipPeriod = Duration.ofMinutes(1);
+
+        // Requests allowed per target email within emailPeriod; 0 disables the check
+        private int emailCapacity = 10;
+        private Duration emailPeriod = Duration.ofMinutes(1);
+
+        public EndpointLimit(int ipCapacity, Duration ipPeriod, int emailCapacity, Duration emailPeriod) {
+            this.ipCapacity = ipCapacity;
+            this.ipPeriod = ipPeriod;
+            this.emailCapacity = emailCapacity;
+            this.emailPeriod = emailPeriod;
+        }
+    }
+}
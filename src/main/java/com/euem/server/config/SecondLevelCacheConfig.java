@@ -0,0 +1,101 @@
+package com.euem.server.config;
+
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for users (by id and by email) and roles, backed by bounded Ehcache heap
+ * regions. Every region is declared here with a capacity; Hibernate fails at startup instead of creating
+ * an unbounded one for a region that is missing.
+ * <p>
+ * Regions are per node. Password checks and refresh token rotation read users with queries that bypass them,
+ * so a password change or deactivation on one node is never answered from another node's copy.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+	@Value("${app.cache.users.max-entries:10000}")
+	private long userMaxEntries;
+
+	@Value("${app.cache.roles.max-entries:16}")
+	private long roleMaxEntries;
+
+	// Only bounds how long a row changed outside Hibernate or on another node can be served; Hibernate keeps this
+	// node's own writes in sync. Authentication and token refresh do not read through this cache
+	@Value("${app.cache.ttl-seconds:600}")
+	private long ttlSeconds;
+
+	@Bean(destroyMethod = "close")
+	public CacheManager hibernateCacheManager() {
+		Map<String, CacheConfiguration<?, ?>> caches = new LinkedHashMap<>();
+		capacities().forEach((region, maxEntries) -> caches.put(region, CacheConfigurationBuilder
+			.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+			.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds)))
+			.build()));
+
+		EhcacheCachingProvider provider =
+			(EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+		// A URI per application context; test contexts briefly overlap and must not share regions
+		URI uri = URI.create("urn:euem:hibernate-cache:" + UUID.randomUUID());
+		CacheManager cacheManager =
+			provider.getCacheManager(uri, new DefaultConfiguration(caches, getClass().getClassLoader()));
+		caches.keySet().forEach(region -> cacheManager.enableStatistics(region, true));
+		return cacheManager;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+		return properties -> {
+			properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+			properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+		};
+	}
+
+	@Bean
+	public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+		// cache.gets, cache.puts and cache.evictions per region, next to the capacity they are measured against
+		return registry -> capacities().forEach((region, maxEntries) -> {
+			JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(region), Tags.empty());
+			Gauge.builder("euem.cache.capacity", maxEntries, Long::doubleValue)
+				.tag("cache", region)
+				.register(registry);
+		});
+	}
+
+	private Map<String, Long> capacities() {
+		Map<String, Long> capacities = new LinkedHashMap<>();
+		capacities.put(User.CACHE_REGION, userMaxEntries);
+		capacities.put(User.EMAIL_CACHE_REGION, userMaxEntries);
+		capacities.put(User.ROLES_CACHE_REGION, userMaxEntries);
+		capacities.put(Role.CACHE_REGION, roleMaxEntries);
+		return capacities;
+	}
+}
@@ -1,13 +1,18 @@
 package com.euem.server.config;
 
+import com.euem.server.security.BCryptCostCalibrator;
+import com.euem.server.security.BoundedPasswordEncoder;
+import com.euem.server.security.CostAwareBCryptPasswordEncoder;
 import com.euem.server.security.JwtAuthenticationFilter;
+import com.euem.server.security.PasswordHashingExecutor;
+import com.euem.server.security.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -16,17 +21,35 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+	private static final String BCRYPT_ID = "bcrypt";
+
 	@Autowired
 	private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+	@Autowired
+	private RateLimitFilter rateLimitFilter;
+
+	@Autowired
+	private PasswordHashingExecutor passwordHashingExecutor;
+
+	@Autowired
+	private BCryptCostCalibrator bcryptCostCalibrator;
+
 	@Bean
 	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+		PasswordEncoder bcrypt = new CostAwareBCryptPasswordEncoder(bcryptCostCalibrator.resolveStrength());
+
+		// Hashes are stored as {bcrypt}$2a$<cost>$...; legacy hashes without a prefix still match and get rehashed on login
+		DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+		delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+		return new BoundedPasswordEncoder(delegating, passwordHashingExecutor);
 	}
 
 	@Bean
@@ -46,9 +69,11 @@ public class SecurityConfig {
 				.requestMatchers("/healthz").permitAll()
 				.requestMatchers("/auth/**").permitAll()
 				.requestMatchers("/users/**").authenticated()
+				.requestMatchers("/admin/**").hasRole("ADMIN")
 				.anyRequest().authenticated()
 			)
-			.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+			.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+			.addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
 
 		return http.build();
 	}
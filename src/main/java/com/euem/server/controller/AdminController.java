@@ -0,0 +1,44 @@
+package com.euem.server.controller;
+
+import com.euem.server.dto.response.MessageResponse;
+import com.euem.server.mail.EmailTemplateRegistry;
+import com.euem.server.service.RoleRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin")
+@CrossOrigin(origins = "*")
+public class AdminController {
+	
+	private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+	
+	@Autowired
+	private EmailTemplateRegistry emailTemplateRegistry;
+	
+	@Autowired
+	private RoleRegistry roleRegistry;
+	
+	@PostMapping("/email-templates/reload")
+	public ResponseEntity<MessageResponse> reloadEmailTemplates() {
+		log.info("Email template reload requested");
+		try {
+			int count = emailTemplateRegistry.reload();
+			return ResponseEntity.ok(MessageResponse.success("Reloaded " + count + " email templates"));
+		} catch (IllegalStateException | IllegalArgumentException ex) {
+			// The previous templates stay in use
+			log.error("Email template reload failed: {}", ex.getMessage(), ex);
+			return ResponseEntity.badRequest().body(MessageResponse.error("Email template reload failed: " + ex.getMessage()));
+		}
+	}
+	
+	@PostMapping("/roles/reload")
+	public ResponseEntity<MessageResponse> reloadRoles() {
+		log.info("Role registry reload requested");
+		int count = roleRegistry.reload();
+		return ResponseEntity.ok(MessageResponse.success("Reloaded " + count + " roles"));
+	}
+}
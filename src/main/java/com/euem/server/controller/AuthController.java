@@ -1,13 +1,17 @@
 package com.euem.server.controller;
 
 import com.euem.server.dto.request.LoginRequest;
+import com.euem.server.dto.request.RefreshTokenRequest;
 import com.euem.server.dto.request.RegisterRequest;
 import com.euem.server.dto.request.VerifyEmailRequest;
 import com.euem.server.dto.response.AuthResponse;
 import com.euem.server.dto.response.MessageResponse;
 import com.euem.server.dto.response.UserResponse;
+import com.euem.server.security.CustomUserPrincipal;
 import com.euem.server.security.JwtTokenProvider;
+import com.euem.server.service.RefreshTokenService;
 import com.euem.server.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +24,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.UUID;
+
 @RestController
 @RequestMapping("/auth")
 @CrossOrigin(origins = "*")
@@ -36,6 +42,9 @@ public class AuthController {
 	@Autowired
 	private JwtTokenProvider jwtTokenProvider;
 	
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+	
 	@Value("${app.jwt.expiration}")
 	private Long jwtExpiration;
 	
@@ -53,14 +62,17 @@ public class AuthController {
 	}
 	
 	@PostMapping("/verify-email")
-	public ResponseEntity<MessageResponse> verifyEmail(@Valid @RequestBody VerifyEmailRequest request) {
-		log.info("Email verification requested for OTP: {}", request.getOtpCode());
+	public ResponseEntity<MessageResponse> verifyEmail(
+		@Valid @RequestBody VerifyEmailRequest request,
+		HttpServletRequest httpRequest
+	) {
+		log.info("Email verification requested for: {}", request.getEmail());
 		try {
-			userService.verifyEmail(request.getOtpCode());
-			log.info("Email verification succeeded for OTP: {}", request.getOtpCode());
+			userService.verifyEmail(request.getEmail(), request.getOtpCode(), httpRequest.getRemoteAddr());
+			log.info("Email verification succeeded for: {}", request.getEmail());
 			return ResponseEntity.ok(MessageResponse.success("Email verified successfully"));
 		} catch (Exception ex) {
-			log.error("Email verification failed for OTP {}: {}", request.getOtpCode(), ex.getMessage(), ex);
+			log.error("Email verification failed for {}: {}", request.getEmail(), ex.getMessage(), ex);
 			throw ex;
 		}
 	}
@@ -88,15 +100,15 @@ public class AuthController {
 			
 			SecurityContextHolder.getContext().setAuthentication(authentication);
 			
-			String token = jwtTokenProvider.generateToken(authentication);
-			UserResponse user = userService.getUserProfile(
-				userService.findByEmail(request.getEmail()).getId()
-			);
+			// The principal may come from the principal cache; profile fields are read fresh, not from it
+			CustomUserPrincipal principal = (CustomUserPrincipal) authentication.getPrincipal();
+			UUID userId = principal.getUser().getId();
 			
-			AuthResponse authResponse = new AuthResponse();
-			authResponse.setAccessToken(token);
-			authResponse.setExpiresIn(jwtExpiration);
-			authResponse.setUser(user);
+			String token = jwtTokenProvider.generateToken(principal);
+			UserResponse user = userService.getUserResponse(userId);
+			String refreshToken = refreshTokenService.issue(userId);
+			
+			AuthResponse authResponse = buildAuthResponse(token, refreshToken, user);
 			
 			log.info("Login successful for user id: {}", user.getId());
 			return ResponseEntity.ok(authResponse);
@@ -105,4 +117,31 @@ public class AuthController {
 			throw ex;
 		}
 	}
+	
+	@PostMapping("/refresh")
+	public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+		log.info("Token refresh requested");
+		try {
+			RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+			
+			String token = jwtTokenProvider.generateToken(CustomUserPrincipal.create(rotation.user()));
+			UserResponse user = userService.convertToUserResponse(rotation.user());
+			
+			log.info("Token refresh successful for user id: {}", user.getId());
+			return ResponseEntity.ok(buildAuthResponse(token, rotation.refreshToken(), user));
+		} catch (Exception ex) {
+			log.error("Token refresh failed: {}", ex.getMessage());
+			throw ex;
+		}
+	}
+	
+	private AuthResponse buildAuthResponse(String accessToken, String refreshToken, UserResponse user) {
+		AuthResponse authResponse = new AuthResponse();
+		authResponse.setAccessToken(accessToken);
+		authResponse.setExpiresIn(jwtExpiration);
+		authResponse.setRefreshToken(refreshToken);
+		authResponse.setRefreshExpiresIn(refreshTokenService.getRefreshExpirationInMs());
+		authResponse.setUser(user);
+		return authResponse;
+	}
 }
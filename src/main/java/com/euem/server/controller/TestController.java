@@ -65,7 +65,7 @@ public class TestController {
 			
 			emailService.sendVerificationEmail(user, VerificationToken.TokenType.EMAIL_VERIFICATION);
 			
-			result.put("status", "Email sent successfully");
+			result.put("status", "Email queued successfully");
 			result.put("message", "Check your email for verification code");
 			
 			return ResponseEntity.ok(result);
@@ -3,11 +3,13 @@ package com.euem.server.controller;
 import com.euem.server.dto.request.ChangeEmailRequest;
 import com.euem.server.dto.request.ChangePasswordRequest;
 import com.euem.server.dto.request.UpdateProfileRequest;
-import com.euem.server.dto.request.VerifyEmailRequest;
+import com.euem.server.dto.request.VerifyNewEmailRequest;
 import com.euem.server.dto.response.MessageResponse;
 import com.euem.server.dto.response.UserResponse;
 import com.euem.server.security.CustomUserPrincipal;
+import com.euem.server.service.UserQueryService;
 import com.euem.server.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +30,9 @@ public class UserController {
 	@Autowired
 	private UserService userService;
 	
+	@Autowired
+	private UserQueryService userQueryService;
+	
 	@GetMapping("/profile")
 	public ResponseEntity<UserResponse> getProfile(Authentication authentication) {
 		CustomUserPrincipal userPrincipal = (CustomUserPrincipal) authentication.getPrincipal();
@@ -35,7 +40,7 @@ public class UserController {
 		
 		log.info("Profile request for user id: {}", userId);
 		try {
-			UserResponse user = userService.getUserProfile(userId);
+			UserResponse user = userQueryService.getUserProfile(userId);
 			log.info("Profile response ready for user id: {}", userId);
 			return ResponseEntity.ok(user);
 		} catch (Exception ex) {
@@ -85,14 +90,15 @@ public class UserController {
 	@PostMapping("/verify-new-email")
 	public ResponseEntity<UserResponse> verifyNewEmail(
 		Authentication authentication,
-		@Valid @RequestBody VerifyEmailRequest request
+		@Valid @RequestBody VerifyNewEmailRequest request,
+		HttpServletRequest httpRequest
 	) {
 		CustomUserPrincipal userPrincipal = (CustomUserPrincipal) authentication.getPrincipal();
 		UUID userId = userPrincipal.getUser().getId();
 		
 		log.info("Verify new email requested for user id: {}", userId);
 		try {
-			UserResponse user = userService.verifyNewEmail(userId, request.getOtpCode());
+			UserResponse user = userService.verifyNewEmail(userId, request.getOtpCode(), httpRequest.getRemoteAddr());
 			log.info("New email verified for user id: {}", userId);
 			return ResponseEntity.ok(user);
 		} catch (Exception ex) {
@@ -1,5 +1,6 @@
 package com.euem.server.dto.request;
 
+import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -7,6 +8,10 @@ import lombok.Data;
 @Data
 public class VerifyEmailRequest {
     
+    @NotBlank(message = "Email is required")
+    @Email(message = "Email should be valid")
+    private String email;
+    
     @NotBlank(message = "OTP code is required")
     @Size(min = 6, max = 6, message = "OTP code must be exactly 6 digits")
     private String otpCode;
@@ -0,0 +1,13 @@
+package com.euem.server.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class VerifyNewEmailRequest {
+    
+    @NotBlank(message = "OTP code is required")
+    @Size(min = 6, max = 6, message = "OTP code must be exactly 6 digits")
+    private String otpCode;
+}
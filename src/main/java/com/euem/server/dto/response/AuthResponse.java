@@ -12,5 +12,7 @@ public class AuthResponse {
     private String accessToken;
     private String tokenType = "Bearer";
     private Long expiresIn;
+    private String refreshToken;
+    private Long refreshExpiresIn;
     private UserResponse user;
 }
@@ -0,0 +1,86 @@
+package com.euem.server.entity;
+
+import com.euem.server.util.GeneratedUuid;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_dispatch", columnList = "status, priority, next_attempt_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxMessage {
+    
+    @Id
+    @GeneratedUuid
+    private UUID id;
+    
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+    
+    @Column(name = "subject", nullable = false)
+    private String subject;
+    
+    @Column(name = "body", nullable = false, columnDefinition = "text")
+    private String body;
+    
+    // Sent as the HTML alternative of body when present
+    @Column(name = "html_body", columnDefinition = "text")
+    private String htmlBody;
+    
+    // Stored as the ordinal so that ordering by the column dispatches URGENT first
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "priority", nullable = false, columnDefinition = "smallint default 1")
+    private Priority priority = Priority.NORMAL;
+    
+    @Column(name = "recipient_domain")
+    private String recipientDomain;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status = Status.PENDING;
+    
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+    
+    // Times the message was handed back over its domain's rate limit; bounded by max-deferrals
+    @Column(name = "deferrals", nullable = false, columnDefinition = "integer default 0")
+    private Integer deferrals = 0;
+    
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    // Set while a dispatcher owns the row; a stale value means the owner died mid-send
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+    
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    public enum Priority {
+        URGENT,
+        NORMAL
+    }
+    
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT,
+        FAILED
+    }
+}
@@ -0,0 +1,53 @@
+package com.euem.server.entity;
+
+import com.euem.server.util.GeneratedUuid;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_hash", columnList = "token_hash", unique = true),
+    @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+    @Index(name = "idx_refresh_tokens_expiry", columnList = "expiry_time")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshToken {
+    
+    @Id
+    @GeneratedUuid
+    private UUID id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+    
+    // SHA-256 of the token handed to the client; the raw value is never stored
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+    
+    // Every token obtained by rotating the same login shares a family
+    @Column(name = "family_id", nullable = false)
+    private UUID familyId;
+    
+    // Cut down to the reuse-detection window once the token is rotated
+    @Column(name = "expiry_time", nullable = false)
+    private LocalDateTime expiryTime;
+    
+    @Column(name = "revoked", nullable = false)
+    private Boolean revoked = false;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
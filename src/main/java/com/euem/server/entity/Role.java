@@ -1,29 +1,69 @@
 package com.euem.server.entity;
 
+import com.euem.server.util.GeneratedUuid;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
 @Table(name = "roles")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Role.CACHE_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Role {
     
+    public static final String CACHE_REGION = "roles";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuid
     private UUID id;
     
     @Enumerated(EnumType.STRING)
     @Column(unique = true, nullable = false)
     private RoleName name;
     
+    // Each role owns one bit of users.role_mask; bits are persisted, so existing ones must never change
     public enum RoleName {
-        USER,
-        ADMIN
+        USER(1),
+        ADMIN(1 << 1);
+        
+        private final int bit;
+        
+        RoleName(int bit) {
+            this.bit = bit;
+        }
+        
+        public int bit() {
+            return bit;
+        }
+        
+        public static Set<RoleName> fromMask(int mask) {
+            Set<RoleName> roles = EnumSet.noneOf(RoleName.class);
+            for (RoleName role : values()) {
+                if ((mask & role.bit) != 0) {
+                    roles.add(role);
+                }
+            }
+            return roles;
+        }
+        
+        public static Set<String> namesOf(int mask) {
+            Set<String> names = new HashSet<>();
+            for (RoleName role : values()) {
+                if ((mask & role.bit) != 0) {
+                    names.add(role.name());
+                }
+            }
+            return names;
+        }
     }
 }
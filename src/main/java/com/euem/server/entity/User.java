@@ -1,10 +1,17 @@
 package com.euem.server.entity;
 
+import com.euem.server.util.GeneratedUuid;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -14,15 +21,23 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "users", indexes = @Index(columnList = "email", unique = true))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@NaturalIdCache(region = User.EMAIL_CACHE_REGION)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
     
+    public static final String CACHE_REGION = "users";
+    public static final String EMAIL_CACHE_REGION = "users-by-email";
+    public static final String ROLES_CACHE_REGION = "users-roles";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuid
     private UUID id;
     
+    // Mutable so an email change updates the cached email -> id resolution instead of leaving it stale
+    @NaturalId(mutable = true)
     @Column(unique = true, nullable = false)
     private String email;
     
@@ -41,6 +56,9 @@ public class User {
     @Column(name = "is_enabled", nullable = false)
     private Boolean isEnabled = true;
     
+    @Column(name = "security_version", nullable = false, columnDefinition = "integer default 0")
+    private Integer securityVersion = 0;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -49,11 +67,31 @@ public class User {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
     
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Bits of Role.RoleName; the source of truth for authorization, read without touching user_roles
+    @Column(name = "role_mask", nullable = false, columnDefinition = "integer default 0")
+    private Integer roleMask = 0;
+    
+    // Still written alongside roleMask so user_roles stays usable, but never read on request paths
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "user_roles",
         joinColumns = @JoinColumn(name = "user_id"),
         inverseJoinColumns = @JoinColumn(name = "role_id")
     )
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.ROLES_CACHE_REGION)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Set<Role> roles = new HashSet<>();
+    
+    public Set<Role.RoleName> getRoleNames() {
+        return Role.RoleName.fromMask(roleMask != null ? roleMask : 0);
+    }
+    
+    public void addRole(Role role) {
+        if (roles == null) {
+            roles = new HashSet<>();
+        }
+        roles.add(role);
+        roleMask = (roleMask != null ? roleMask : 0) | role.getName().bit();
+    }
 }
@@ -1,5 +1,6 @@
 package com.euem.server.entity;
 
+import com.euem.server.util.GeneratedUuid;
 import jakarta.persistence.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
@@ -11,14 +12,18 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "verification_tokens")
+@Table(name = "verification_tokens", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_verification_tokens_user_type", columnNames = {"user_id", "type"})
+}, indexes = {
+    @Index(name = "idx_verification_tokens_expiry", columnList = "expiry_time")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class VerificationToken {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuid
     private UUID id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,6 +36,10 @@ public class VerificationToken {
     @Column(name = "expiry_time", nullable = false)
     private LocalDateTime expiryTime;
     
+    // When the code was last mailed; resends inside the cooldown are answered without a mail
+    @Column(name = "last_sent_at")
+    private LocalDateTime lastSentAt;
+    
     @Enumerated(EnumType.STRING)
     @JdbcTypeCode(SqlTypes.NAMED_ENUM)
     @Column(name = "type", nullable = false, columnDefinition = "verification_token_type")
@@ -0,0 +1,12 @@
+package com.euem.server.exception;
+
+public class InvalidRefreshTokenException extends RuntimeException {
+    
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+    
+    public InvalidRefreshTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
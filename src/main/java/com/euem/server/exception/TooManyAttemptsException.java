@@ -0,0 +1,15 @@
+package com.euem.server.exception;
+
+public class TooManyAttemptsException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public TooManyAttemptsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
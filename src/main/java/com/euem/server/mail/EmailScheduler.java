@@ -0,0 +1,189 @@
+package com.euem.server.mail;
+
+import com.euem.server.config.MailSchedulerProperties;
+import com.euem.server.entity.EmailOutboxMessage;
+import com.euem.server.entity.VerificationToken;
+import com.euem.server.repository.EmailOutboxRepository;
+import com.euem.server.util.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which claimed outbox messages may go out now. Every recipient domain has a token bucket;
+ * NORMAL mail may only use {@code normal-share} of it so URGENT codes still get through while a bulk
+ * wave is being throttled. Messages over the limit are handed back with a due time booked one refill
+ * interval apart, so deferrals from successive batches queue up instead of coming back in a burst; new
+ * mail of the same priority waits behind them. NORMAL mail books its slots in its own share, never in
+ * the domain's shared bucket, so URGENT mail is only ever queued behind other URGENT mail.
+ */
+@Component
+public class EmailScheduler {
+
+	private static final Logger log = LoggerFactory.getLogger(EmailScheduler.class);
+
+	private static final String OTHER_DOMAINS = "other";
+
+	private static final String UNKNOWN_DOMAIN = "unknown";
+
+	@Autowired
+	private MailSchedulerProperties properties;
+
+	@Autowired
+	private EmailOutboxRepository outboxRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	// Time source for the domain buckets; tests replace it to advance time without sleeping
+	private LongSupplier nanoTime = System::nanoTime;
+
+	private TokenBucketRateLimiter domainLimiter;
+
+	private MultiGauge depthGauge;
+
+	private MultiGauge lagGauge;
+
+	@PostConstruct
+	void init() {
+		domainLimiter = new TokenBucketRateLimiter(properties.getMaxDomains(), nanoTime);
+		depthGauge = MultiGauge.builder("euem.mail.outbox.depth")
+			.description("Undelivered outbox messages per recipient domain and priority")
+			.register(meterRegistry);
+		lagGauge = MultiGauge.builder("euem.mail.outbox.lag")
+			.description("Age of the oldest undelivered outbox message per recipient domain and priority")
+			.baseUnit("seconds")
+			.register(meterRegistry);
+	}
+
+	public EmailOutboxMessage.Priority priorityOf(VerificationToken.TokenType tokenType) {
+		return properties.getPriorities().getOrDefault(tokenType, EmailOutboxMessage.Priority.NORMAL);
+	}
+
+	public static String domainOf(String recipient) {
+		int at = recipient != null ? recipient.lastIndexOf('@') : -1;
+		return at >= 0 && at < recipient.length() - 1
+			? recipient.substring(at + 1).trim().toLowerCase(Locale.ROOT)
+			: UNKNOWN_DOMAIN;
+	}
+
+	/**
+	 * Splits a claimed batch into the messages to send now and those to hand back, with the time each
+	 * deferred message becomes due again.
+	 */
+	public Admission admit(List<EmailOutboxMessage> batch, LocalDateTime now) {
+		List<EmailOutboxMessage> admitted = new ArrayList<>(batch.size());
+		Map<EmailOutboxMessage, LocalDateTime> deferred = new IdentityHashMap<>();
+
+		List<EmailOutboxMessage> byPriority = new ArrayList<>(batch);
+		byPriority.sort(Comparator.comparing(EmailOutboxMessage::getPriority));
+
+		for (EmailOutboxMessage message : byPriority) {
+			String domain = message.getRecipientDomain() != null
+				? message.getRecipientDomain()
+				: domainOf(message.getRecipient());
+			MailSchedulerProperties.DomainLimit limit = limitFor(domain);
+
+			// A message deferred before already holds its place in the queue
+			boolean queued = message.getDeferrals() > 0;
+			long delayMillis = acquireOrReserve(domain, message.getPriority(), limit, queued);
+			if (delayMillis == 0) {
+				admitted.add(message);
+			} else {
+				deferred.put(message, now.plus(Duration.ofMillis(delayMillis)));
+			}
+		}
+
+		if (!deferred.isEmpty()) {
+			log.debug("Deferred {} of {} emails over per-domain limits", deferred.size(), batch.size());
+		}
+		return new Admission(admitted, deferred);
+	}
+
+	/**
+	 * Republishes outbox depth and lag per domain and priority. Runs a single aggregate query.
+	 */
+	public void refreshBacklog() {
+		List<OutboxBacklog> backlog = outboxRepository.summarizeBacklog(
+			EnumSet.of(EmailOutboxMessage.Status.PENDING, EmailOutboxMessage.Status.SENDING));
+
+		// Keep the label cardinality bounded: the largest domains by depth, everything else folded together
+		List<String> reported = backlog.stream()
+			.collect(Collectors.groupingBy(row -> domainLabel(row.domain()), Collectors.summingLong(OutboxBacklog::depth)))
+			.entrySet().stream()
+			.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+			.limit(properties.getMaxReportedDomains())
+			.map(Map.Entry::getKey)
+			.toList();
+
+		Map<Tags, Long> depth = new HashMap<>();
+		Map<Tags, LocalDateTime> oldest = new HashMap<>();
+		for (OutboxBacklog row : backlog) {
+			String domain = domainLabel(row.domain());
+			Tags tags = Tags.of(
+				"domain", reported.contains(domain) ? domain : OTHER_DOMAINS,
+				"priority", row.priority().name());
+			depth.merge(tags, row.depth(), Long::sum);
+			oldest.merge(tags, row.oldestCreatedAt(), (a, b) -> a.isBefore(b) ? a : b);
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		depthGauge.register(depth.entrySet().stream()
+			.map(entry -> MultiGauge.Row.of(entry.getKey(), entry.getValue()))
+			.collect(Collectors.toList()), true);
+		lagGauge.register(oldest.entrySet().stream()
+			.map(entry -> MultiGauge.Row.of(entry.getKey(),
+				Math.max(0, Duration.between(entry.getValue(), now).toMillis() / 1000.0)))
+			.collect(Collectors.toList()), true);
+	}
+
+	// Returns 0 when the message may go now, otherwise the delay to the slot booked for it. NORMAL mail books
+	// only in its own share, so the shared bucket's queue holds URGENT mail alone and codes never wait behind bulk
+	private long acquireOrReserve(String domain, EmailOutboxMessage.Priority priority,
+			MailSchedulerProperties.DomainLimit limit, boolean queued) {
+		String key = "all:" + domain;
+		if (priority == EmailOutboxMessage.Priority.URGENT) {
+			long waitMillis = domainLimiter.tryAcquire(key, limit.getCapacity(), limit.getPeriod(), queued);
+			return waitMillis > 0 ? domainLimiter.reserve(key, limit.getCapacity(), limit.getPeriod(), waitMillis) : 0;
+		}
+
+		// A NORMAL permit taken here is lost if the shared bucket refuses below; that only errs on the slow side
+		String normalKey = "normal:" + domain;
+		int normalCapacity = Math.max(1, (int) Math.floor(limit.getCapacity() * properties.getNormalShare()));
+		long waitMillis = domainLimiter.tryAcquire(normalKey, normalCapacity, limit.getPeriod(), queued);
+		if (waitMillis == 0) {
+			waitMillis = domainLimiter.tryAcquire(key, limit.getCapacity(), limit.getPeriod(), queued);
+		}
+		return waitMillis > 0 ? domainLimiter.reserve(normalKey, normalCapacity, limit.getPeriod(), waitMillis) : 0;
+	}
+
+	private MailSchedulerProperties.DomainLimit limitFor(String domain) {
+		MailSchedulerProperties.DomainLimit limit = properties.getDomains().get(domain);
+		return limit != null ? limit : properties.getDefaultLimit();
+	}
+
+	private static String domainLabel(String domain) {
+		return domain != null ? domain : UNKNOWN_DOMAIN;
+	}
+
+	public record Admission(List<EmailOutboxMessage> admitted, Map<EmailOutboxMessage, LocalDateTime> deferred) {
+	}
+}
@@ -0,0 +1,112 @@
+package com.euem.server.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template with {@code {{name}}} placeholders, split once into literal segments and variable slots
+ * so rendering is a single pass of appends into a per-thread buffer.
+ */
+public final class EmailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    // Buffers that grew past this are dropped after use instead of being kept per thread
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final String[] literals;
+
+    private final String[] variables;
+
+    private final boolean escapeHtml;
+
+    private final int estimatedLength;
+
+    private EmailTemplate(String[] literals, String[] variables, boolean escapeHtml) {
+        this.literals = literals;
+        this.variables = variables;
+        this.escapeHtml = escapeHtml;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.estimatedLength = length;
+    }
+
+    /**
+     * Compiles a template. Values rendered into an HTML template are escaped.
+     *
+     * @throws IllegalArgumentException if a placeholder is not closed or has no name
+     */
+    public static EmailTemplate compile(String source, boolean html) {
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, position);
+            if (open < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Empty placeholder at offset " + open);
+            }
+            literals.add(source.substring(position, open));
+            variables.add(name);
+            position = close + CLOSE.length();
+        }
+        return new EmailTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new), html);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a placeholder has no value
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(estimatedLength + 64 * variables.length);
+
+        buffer.append(literals[0]);
+        for (int i = 0; i < variables.length; i++) {
+            String value = values.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("No value for template variable " + variables[i]);
+            }
+            if (escapeHtml) {
+                appendEscaped(buffer, value);
+            } else {
+                buffer.append(value);
+            }
+            buffer.append(literals[i + 1]);
+        }
+
+        String rendered = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return rendered;
+    }
+
+    private static void appendEscaped(StringBuilder buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> buffer.append("&amp;");
+                case '<' -> buffer.append("&lt;");
+                case '>' -> buffer.append("&gt;");
+                case '"' -> buffer.append("&quot;");
+                case '\'' -> buffer.append("&#39;");
+                default -> buffer.append(c);
+            }
+        }
+    }
+}
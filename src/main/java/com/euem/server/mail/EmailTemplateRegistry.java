@@ -0,0 +1,136 @@
+package com.euem.server.mail;
+
+import com.euem.server.entity.VerificationToken;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Email templates compiled once at startup and on {@link #reload()}. Files are named
+ * {@code <template>.<locale>.<part>} where part is {@code subject}, {@code txt} or {@code html},
+ * e.g. {@code password-reset.en.txt}. Lookups fall back from the full locale tag to its language and
+ * then to {@code app.mail.templates.default-locale}.
+ */
+@Component
+public class EmailTemplateRegistry {
+
+	private static final Logger log = LoggerFactory.getLogger(EmailTemplateRegistry.class);
+
+	private static final String SUBJECT = "subject";
+	private static final String TEXT = "txt";
+	private static final String HTML = "html";
+
+	private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+
+	// Point this at a file: location to change copy without a redeploy
+	@Value("${app.mail.templates.location:classpath:templates/email/}")
+	private String location;
+
+	@Value("${app.mail.templates.default-locale:en}")
+	private String defaultLocale;
+
+	private volatile Map<String, TemplateSet> templates = Map.of();
+
+	@PostConstruct
+	void init() {
+		reload();
+	}
+
+	/**
+	 * Loads and compiles every template under the configured location and swaps them in atomically.
+	 * On any error the templates in use are kept.
+	 *
+	 * @return the number of templates loaded
+	 */
+	public synchronized int reload() {
+		Map<String, Map<String, EmailTemplate>> parts = new HashMap<>();
+		try {
+			for (Resource resource : resourceResolver.getResources(location + "*.*")) {
+				String filename = resource.getFilename();
+				String[] name = filename != null ? filename.split("\\.") : new String[0];
+				if (name.length != 3) {
+					log.warn("Ignoring email template file with unexpected name: {}", filename);
+					continue;
+				}
+				String source = read(resource);
+				if (SUBJECT.equals(name[2])) {
+					source = source.strip();
+				}
+				EmailTemplate template = EmailTemplate.compile(source, HTML.equals(name[2]));
+				parts.computeIfAbsent(key(name[0], name[1]), k -> new HashMap<>()).put(name[2], template);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to load email templates from " + location, e);
+		}
+
+		Map<String, TemplateSet> loaded = new HashMap<>();
+		parts.forEach((key, set) -> {
+			if (!set.containsKey(SUBJECT) || !set.containsKey(TEXT)) {
+				throw new IllegalStateException("Email template " + key + " needs both a subject and a txt part");
+			}
+			loaded.put(key, new TemplateSet(set.get(SUBJECT), set.get(TEXT), set.get(HTML)));
+		});
+
+		for (VerificationToken.TokenType type : VerificationToken.TokenType.values()) {
+			if (!loaded.containsKey(key(templateName(type), defaultLocale))) {
+				throw new IllegalStateException("Missing " + defaultLocale + " email template for " + type);
+			}
+		}
+
+		templates = Map.copyOf(loaded);
+		log.info("Loaded {} email templates from {}", loaded.size(), location);
+		return loaded.size();
+	}
+
+	public RenderedEmail render(VerificationToken.TokenType type, Locale locale, Map<String, String> values) {
+		TemplateSet set = lookup(templateName(type), locale);
+		return new RenderedEmail(
+			set.subject().render(values),
+			set.text().render(values),
+			set.html() != null ? set.html().render(values) : null
+		);
+	}
+
+	private TemplateSet lookup(String name, Locale locale) {
+		Map<String, TemplateSet> current = templates;
+		if (locale != null) {
+			TemplateSet set = current.get(key(name, locale.toLanguageTag()));
+			if (set == null) {
+				set = current.get(key(name, locale.getLanguage()));
+			}
+			if (set != null) {
+				return set;
+			}
+		}
+		return current.get(key(name, defaultLocale));
+	}
+
+	private static String templateName(VerificationToken.TokenType type) {
+		return type.name().toLowerCase(Locale.ROOT).replace('_', '-');
+	}
+
+	private static String key(String name, String locale) {
+		return name + "." + locale.toLowerCase(Locale.ROOT);
+	}
+
+	private static String read(Resource resource) throws IOException {
+		try (InputStream in = resource.getInputStream()) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private record TemplateSet(EmailTemplate subject, EmailTemplate text, EmailTemplate html) {
+	}
+}
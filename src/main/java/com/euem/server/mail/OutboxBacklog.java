@@ -0,0 +1,16 @@
+package com.euem.server.mail;
+
+import com.euem.server.entity.EmailOutboxMessage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Undelivered outbox messages for one recipient domain and priority.
+ */
+public record OutboxBacklog(
+    String domain,
+    EmailOutboxMessage.Priority priority,
+    Long depth,
+    LocalDateTime oldestCreatedAt
+) {
+}
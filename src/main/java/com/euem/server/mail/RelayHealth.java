@@ -0,0 +1,112 @@
+package com.euem.server.mail;
+
+import com.euem.server.config.MailRelayProperties;
+
+/**
+ * Moving averages of latency and error rate for one relay, plus a circuit breaker. An open breaker
+ * keeps the relay out of rotation for {@code openDuration}; after that one probe send is allowed and
+ * its outcome closes or reopens the breaker.
+ */
+public class RelayHealth {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final MailRelayProperties.Health settings;
+
+    private State state = State.CLOSED;
+
+    private double latencyMillis = -1;
+
+    private double errorRate;
+
+    private long samples;
+
+    private int consecutiveFailures;
+
+    private long openedAt;
+
+    private boolean probeInFlight;
+
+    public RelayHealth(MailRelayProperties.Health settings) {
+        this.settings = settings;
+    }
+
+    public synchronized boolean isAvailable() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Moves an open relay whose {@code openDuration} has passed to half-open and claims its single probe
+     * slot. A caller that gets {@code true} must send through the relay and report the outcome.
+     */
+    public synchronized boolean tryProbe(long nowNanos) {
+        if (state == State.OPEN && nowNanos - openedAt >= settings.getOpenDuration().toNanos()) {
+            state = State.HALF_OPEN;
+        }
+        if (state != State.HALF_OPEN || probeInFlight) {
+            return false;
+        }
+        probeInFlight = true;
+        return true;
+    }
+
+    /**
+     * Routing weight: faster and more reliable relays get proportionally more traffic.
+     */
+    public synchronized double score(double weight) {
+        if (state != State.CLOSED) {
+            return 0;
+        }
+        double floor = settings.getMinLatency().toNanos() / 1_000_000.0;
+        double latency = Math.max(floor, latencyMillis < 0 ? floor : latencyMillis);
+        double reliability = 1 - errorRate;
+        return weight * reliability * reliability / latency;
+    }
+
+    public synchronized void recordSuccess(long latencyNanos, int messages, long nowNanos) {
+        record(latencyNanos / 1_000_000.0 / Math.max(1, messages), 0);
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            probeInFlight = false;
+            // Start from a clean slate instead of the error rate that opened the breaker
+            errorRate = 0;
+            samples = 0;
+        }
+    }
+
+    public synchronized void recordFailure(long latencyNanos, long nowNanos) {
+        record(latencyNanos / 1_000_000.0, 1);
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN
+            || consecutiveFailures >= settings.getFailureThreshold()
+            || (samples >= settings.getMinSamples() && errorRate >= settings.getErrorRateThreshold())) {
+            state = State.OPEN;
+            openedAt = nowNanos;
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized double getLatencyMillis() {
+        return Math.max(0, latencyMillis);
+    }
+
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    private void record(double latency, double error) {
+        double alpha = settings.getEwmaAlpha();
+        latencyMillis = latencyMillis < 0 ? latency : alpha * latency + (1 - alpha) * latencyMillis;
+        errorRate = samples == 0 ? error : alpha * error + (1 - alpha) * errorRate;
+        samples++;
+    }
+}
@@ -0,0 +1,7 @@
+package com.euem.server.mail;
+
+/**
+ * Subject and bodies of one message; {@code html} is null when the template has no HTML part.
+ */
+public record RenderedEmail(String subject, String text, String html) {
+}
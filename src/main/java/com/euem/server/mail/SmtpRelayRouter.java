@@ -0,0 +1,194 @@
+package com.euem.server.mail;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads mail across SMTP relays in proportion to their health score. A relay that keeps failing is
+ * ejected by its {@link RelayHealth} breaker and brought back through a single-message probe; messages
+ * a relay could not take are retried on the next best relay within the same call.
+ */
+public class SmtpRelayRouter implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SmtpRelayRouter.class);
+
+    private final List<Relay> relays;
+
+    public SmtpRelayRouter(List<Relay> relays) {
+        if (relays.isEmpty()) {
+            throw new IllegalArgumentException("At least one SMTP relay is required");
+        }
+        this.relays = List.copyOf(relays);
+    }
+
+    /**
+     * Session to build messages with; messages are not tied to the relay that ends up sending them.
+     */
+    public Session getSession() {
+        return relays.get(0).pool().getSession();
+    }
+
+    public List<Relay> getRelays() {
+        return relays;
+    }
+
+    public void send(List<MimeMessage> messages) {
+        List<MimeMessage> remaining = new ArrayList<>(messages);
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        Set<Relay> tried = new HashSet<>();
+
+        // An ejected relay whose wait is over gets exactly one message as a probe
+        for (Relay relay : relays) {
+            if (!remaining.isEmpty() && relay.health().tryProbe(System.nanoTime())) {
+                MimeMessage probe = remaining.remove(0);
+                log.info("Probing SMTP relay {}", relay.name());
+                Map<Object, Exception> probeFailures = sendVia(relay, List.of(probe));
+                if (!probeFailures.isEmpty()) {
+                    remaining.add(probe);
+                    tried.add(relay);
+                }
+            }
+        }
+
+        while (!remaining.isEmpty()) {
+            Relay relay = pick(tried);
+            if (relay == null) {
+                MailException unavailable = new MailSendException("No SMTP relay available");
+                remaining.forEach(message -> failures.put(message, unavailable));
+                break;
+            }
+            tried.add(relay);
+
+            Map<Object, Exception> relayFailures = sendVia(relay, remaining);
+            remaining = new ArrayList<>();
+            for (Map.Entry<Object, Exception> failure : relayFailures.entrySet()) {
+                // A refused recipient fails the same way on every relay
+                if (isRecipientFailure(failure.getValue())) {
+                    failures.put(failure.getKey(), failure.getValue());
+                } else {
+                    remaining.add((MimeMessage) failure.getKey());
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new MailSendException("Failed to send " + failures.size() + " of " + messages.size() + " messages",
+                null, failures);
+        }
+    }
+
+    public void evictIdle() {
+        relays.forEach(relay -> relay.pool().evictIdle());
+    }
+
+    @Override
+    public void close() {
+        relays.forEach(relay -> relay.pool().close());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Relay relay : relays) {
+            relay.pool().bindTo(registry);
+            Gauge.builder("euem.mail.relay.score", relay, r -> r.health().score(r.weight()))
+                .tag("relay", relay.name())
+                .register(registry);
+            Gauge.builder("euem.mail.relay.latency", relay, r -> r.health().getLatencyMillis())
+                .tag("relay", relay.name())
+                .baseUnit("milliseconds")
+                .register(registry);
+            Gauge.builder("euem.mail.relay.error.rate", relay, r -> r.health().getErrorRate())
+                .tag("relay", relay.name())
+                .register(registry);
+            Gauge.builder("euem.mail.relay.available", relay, r -> r.health().isAvailable() ? 1 : 0)
+                .tag("relay", relay.name())
+                .register(registry);
+        }
+    }
+
+    private Map<Object, Exception> sendVia(Relay relay, List<MimeMessage> messages) {
+        long start = System.nanoTime();
+        Map<Object, Exception> failed;
+        try {
+            relay.pool().send(messages);
+            failed = Map.of();
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages().isEmpty() ? failAll(messages, e) : e.getFailedMessages();
+        } catch (RuntimeException e) {
+            // Still has to reach the health record below, or a probe would leave the relay half-open for good
+            log.warn("SMTP relay {} failed unexpectedly: {}", relay.name(), e.toString());
+            failed = failAll(messages, e);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long relayFailures = failed.values().stream().filter(error -> !isRecipientFailure(error)).count();
+        if (relayFailures == 0) {
+            relay.health().recordSuccess(elapsed, messages.size(), System.nanoTime());
+        } else {
+            relay.health().recordFailure(elapsed, System.nanoTime());
+            if (!relay.health().isAvailable()) {
+                log.warn("SMTP relay {} ejected after failed send ({} of {} messages failed)",
+                    relay.name(), relayFailures, messages.size());
+            }
+        }
+        return failed;
+    }
+
+    private static Map<Object, Exception> failAll(List<MimeMessage> messages, Exception error) {
+        Map<Object, Exception> failed = new LinkedHashMap<>();
+        messages.forEach(message -> failed.put(message, error));
+        return failed;
+    }
+
+    // Weighted random choice by health score among available relays not tried yet
+    private Relay pick(Set<Relay> exclude) {
+        double total = 0;
+        double[] scores = new double[relays.size()];
+        for (int i = 0; i < relays.size(); i++) {
+            Relay relay = relays.get(i);
+            scores[i] = exclude.contains(relay) ? 0 : relay.health().score(relay.weight());
+            total += scores[i];
+        }
+        if (total <= 0) {
+            return null;
+        }
+
+        double target = ThreadLocalRandom.current().nextDouble(total);
+        Relay chosen = null;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > 0) {
+                chosen = relays.get(i);
+                target -= scores[i];
+                if (target < 0) {
+                    break;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    private static boolean isRecipientFailure(Exception error) {
+        return error instanceof SendFailedException sendFailed
+            && sendFailed.getInvalidAddresses() != null
+            && sendFailed.getInvalidAddresses().length > 0;
+    }
+
+    public record Relay(String name, double weight, SmtpTransportPool pool, RelayHealth health) {
+    }
+}
@@ -0,0 +1,302 @@
+package com.euem.server.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.MailSendException;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Long-lived, authenticated SMTP connections to one relay. Connections are reused until they have
+ * carried {@code maxMessagesPerConnection} messages or sat idle past {@code idleTimeout}; a connection
+ * that was idle for a while is checked with NOOP before it is handed out again.
+ */
+public class SmtpTransportPool implements MeterBinder, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    private final String name;
+
+    private final Session session;
+
+    private final String protocol;
+
+    private final String host;
+
+    private final int port;
+
+    private final String username;
+
+    private final String password;
+
+    private final Settings settings;
+
+    // Most recently used first, so the tail holds the connections that can be evicted
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+
+    private final Semaphore permits;
+
+    private final AtomicInteger open = new AtomicInteger();
+
+    private final LongAdder connectionsOpened = new LongAdder();
+
+    private final LongAdder messagesSent = new LongAdder();
+
+    private Counter healthCheckFailures;
+
+    private volatile boolean closed;
+
+    public SmtpTransportPool(String name, Session session, String protocol, String host, int port,
+                             String username, String password, Settings settings) {
+        this.name = name;
+        this.session = session;
+        this.protocol = protocol != null ? protocol : "smtp";
+        this.host = host;
+        this.port = port;
+        this.username = emptyToNull(username);
+        this.password = emptyToNull(password);
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxConnections(), true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Sends the messages over as few connections as possible. Messages the server refuses are
+     * reported together in one {@link MailSendException}; the others are delivered regardless.
+     */
+    public void send(List<MimeMessage> messages) {
+        Map<Object, Exception> failures = new LinkedHashMap<>();
+        PooledTransport connection = null;
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                MimeMessage message = messages.get(i);
+                if (connection == null) {
+                    try {
+                        connection = borrow();
+                    } catch (MessagingException e) {
+                        // No connection for this one means none for the rest either
+                        for (MimeMessage remaining : messages.subList(i, messages.size())) {
+                            failures.put(remaining, e);
+                        }
+                        break;
+                    }
+                }
+
+                try {
+                    if (message.getSentDate() == null) {
+                        message.setSentDate(new Date());
+                    }
+                    message.saveChanges();
+                    connection.transport.sendMessage(message, message.getAllRecipients());
+                    connection.messages++;
+                    messagesSent.increment();
+                } catch (MessagingException e) {
+                    failures.put(message, e);
+                    if (!connection.transport.isConnected()) {
+                        discardBorrowed(connection);
+                        connection = null;
+                        continue;
+                    }
+                }
+
+                if (connection.messages >= settings.maxMessagesPerConnection()) {
+                    release(connection);
+                    connection = null;
+                }
+            }
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new MailSendException("Failed to send " + failures.size() + " of " + messages.size()
+                + " messages via " + name, null, failures);
+        }
+    }
+
+    /**
+     * Closes connections that have been idle longer than {@code idleTimeout}. Meant to be run periodically.
+     */
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - settings.idleTimeout().toNanos();
+        PooledTransport candidate;
+        while ((candidate = idle.peekLast()) != null && candidate.lastUsed < cutoff) {
+            if (idle.removeLastOccurrence(candidate)) {
+                discard(candidate);
+            }
+        }
+    }
+
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledTransport connection;
+        while ((connection = idle.pollFirst()) != null) {
+            discard(connection);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("euem.mail.smtp.connections.open", open, AtomicInteger::get)
+            .tag("relay", name)
+            .register(registry);
+        Gauge.builder("euem.mail.smtp.connections.idle", idle, LinkedBlockingDeque::size)
+            .tag("relay", name)
+            .register(registry);
+        FunctionCounter.builder("euem.mail.smtp.connections.opened", connectionsOpened, LongAdder::sum)
+            .tag("relay", name)
+            .register(registry);
+        FunctionCounter.builder("euem.mail.smtp.messages.sent", messagesSent, LongAdder::sum)
+            .tag("relay", name)
+            .register(registry);
+        healthCheckFailures = Counter.builder("euem.mail.smtp.health-check.failures")
+            .tag("relay", name)
+            .register(registry);
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        if (closed) {
+            throw new MessagingException("SMTP pool " + name + " is closed");
+        }
+        try {
+            if (!permits.tryAcquire(settings.borrowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Timed out waiting for an SMTP connection to " + name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted waiting for an SMTP connection to " + name, e);
+        }
+
+        try {
+            PooledTransport connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isUsable(connection)) {
+                    return connection;
+                }
+                discard(connection);
+            }
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledTransport connection) {
+        long idleNanos = System.nanoTime() - connection.lastUsed;
+        if (idleNanos >= settings.idleTimeout().toNanos()) {
+            return false;
+        }
+        // isConnected() issues a NOOP on SMTP transports; skip it for connections that were just used
+        if (idleNanos >= settings.validateAfterIdle().toNanos() && !connection.transport.isConnected()) {
+            if (healthCheckFailures != null) {
+                healthCheckFailures.increment();
+            }
+            log.debug("Dropping stale SMTP connection to {}", name);
+            return false;
+        }
+        return true;
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = session.getTransport(protocol);
+        transport.connect(host, port, username, password);
+        open.incrementAndGet();
+        connectionsOpened.increment();
+        log.debug("Opened SMTP connection to {} ({} open)", name, open.get());
+        return new PooledTransport(transport);
+    }
+
+    private void release(PooledTransport connection) {
+        try {
+            connection.lastUsed = System.nanoTime();
+            if (closed || connection.messages >= settings.maxMessagesPerConnection()) {
+                discard(connection);
+            } else {
+                idle.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void discardBorrowed(PooledTransport connection) {
+        try {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Only for connections that hold no permit: idle, evicted or never handed out
+    private void discard(PooledTransport connection) {
+        open.decrementAndGet();
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Error closing SMTP connection to {}: {}", name, e.getMessage());
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value != null && !value.isEmpty() ? value : null;
+    }
+
+    private static final class PooledTransport {
+
+        private final Transport transport;
+
+        private int messages;
+
+        private volatile long lastUsed = System.nanoTime();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    public record Settings(
+        int maxConnections,
+        int maxMessagesPerConnection,
+        Duration idleTimeout,
+        Duration validateAfterIdle,
+        Duration borrowTimeout
+    ) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.euem.server.repository;
+
+import com.euem.server.entity.EmailOutboxMessage;
+import com.euem.server.mail.OutboxBacklog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, UUID> {
+    
+    /**
+     * Locks up to {@code batchSize} due messages, most urgent first, skipping rows another dispatcher
+     * already holds. Messages stuck in SENDING since before {@code staleBefore} are picked up again.
+     */
+    @Query(value = """
+        SELECT * FROM email_outbox
+        WHERE (status = 'PENDING' AND next_attempt_at <= :now)
+           OR (status = 'SENDING' AND claimed_at < :staleBefore)
+        ORDER BY priority, next_attempt_at
+        LIMIT :batchSize
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<EmailOutboxMessage> lockDueBatch(
+        @Param("now") LocalDateTime now,
+        @Param("staleBefore") LocalDateTime staleBefore,
+        @Param("batchSize") int batchSize
+    );
+    
+    // Blanks the delivered content, which can hold a one-time code; the row is kept only for bookkeeping until purged
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.euem.server.entity.EmailOutboxMessage.Status.SENT, m.sentAt = :now, m.claimedAt = null, m.lastError = null, m.body = '', m.htmlBody = null WHERE m.id = :id")
+    int markSent(@Param("id") UUID id, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :status, m.nextAttemptAt = :nextAttemptAt, m.claimedAt = null, m.lastError = :error WHERE m.id = :id")
+    int markFailed(
+        @Param("id") UUID id,
+        @Param("status") EmailOutboxMessage.Status status,
+        @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+        @Param("error") String error
+    );
+    
+    // Gives up on a message and blanks its content like markSent; recipient, subject and error stay
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.euem.server.entity.EmailOutboxMessage.Status.FAILED, m.nextAttemptAt = :now, m.claimedAt = null, m.lastError = :error, m.body = '', m.htmlBody = null WHERE m.id = :id")
+    int markGivenUp(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("error") String error);
+    
+    // Hands a claimed message back without counting the claim as a delivery attempt; deferrals counts it instead
+    @Modifying
+    @Query("UPDATE EmailOutboxMessage m SET m.status = :status, m.nextAttemptAt = :nextAttemptAt, m.claimedAt = null, m.attempts = m.attempts - 1, m.deferrals = m.deferrals + 1 WHERE m.id = :id")
+    int defer(
+        @Param("id") UUID id,
+        @Param("status") EmailOutboxMessage.Status status,
+        @Param("nextAttemptAt") LocalDateTime nextAttemptAt
+    );
+    
+    @Query("SELECT new com.euem.server.mail.OutboxBacklog(m.recipientDomain, m.priority, COUNT(m), MIN(m.createdAt)) " +
+           "FROM EmailOutboxMessage m WHERE m.status IN :statuses GROUP BY m.recipientDomain, m.priority")
+    List<OutboxBacklog> summarizeBacklog(@Param("statuses") Collection<EmailOutboxMessage.Status> statuses);
+    
+    @Modifying
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = com.euem.server.entity.EmailOutboxMessage.Status.SENT AND m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+    
+    // A given-up message keeps the time it failed in nextAttemptAt
+    @Modifying
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = com.euem.server.entity.EmailOutboxMessage.Status.FAILED AND m.nextAttemptAt < :before")
+    int deleteFailedBefore(@Param("before") LocalDateTime before);
+    
+    long countByStatus(EmailOutboxMessage.Status status);
+}
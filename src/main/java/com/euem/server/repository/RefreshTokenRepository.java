@@ -0,0 +1,43 @@
+package com.euem.server.repository;
+
+import com.euem.server.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+    
+    @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.user WHERE rt.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+    
+    // A rotated token is kept until keepUntil at most, so presenting it again within that window is still caught
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true, " +
+           "rt.expiryTime = CASE WHEN rt.expiryTime < :keepUntil THEN rt.expiryTime ELSE :keepUntil END " +
+           "WHERE rt.id = :id AND rt.revoked = false")
+    int revokeIfActive(@Param("id") UUID id, @Param("keepUntil") LocalDateTime keepUntil);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.familyId = :familyId")
+    int deleteByFamilyId(@Param("familyId") UUID familyId);
+    
+    @Modifying
+    @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId")
+    int deleteByUserId(@Param("userId") UUID userId);
+    
+    // Deletes at most batchSize expired rows; rows locked by a concurrent rotation are left for the next batch
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN (" +
+                   "SELECT id FROM refresh_tokens WHERE expiry_time < :now " +
+                   "ORDER BY expiry_time LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+    
+    long countByExpiryTimeBefore(LocalDateTime now);
+}
@@ -0,0 +1,18 @@
+package com.euem.server.repository;
+
+import com.euem.server.entity.User;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The hot user lookups, resolved through the Hibernate second-level cache instead of a JPQL query that
+ * would always reach the database. The cache is node-local, so authentication uses
+ * {@link UserRepository#findCommittedByEmail} and {@link UserRepository#findCommittedById} instead.
+ */
+public interface UserLookupRepository {
+    
+    Optional<User> findByEmail(String email);
+    
+    Optional<User> findByIdAndIsEnabledTrue(UUID id);
+}
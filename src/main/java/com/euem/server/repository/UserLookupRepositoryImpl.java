@@ -0,0 +1,34 @@
+package com.euem.server.repository;
+
+import com.euem.server.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+// Read-only like the derived queries it replaces; the session must outlive unwrap() outside a caller's transaction
+@Transactional(readOnly = true)
+class UserLookupRepositoryImpl implements UserLookupRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+            .bySimpleNaturalId(User.class)
+            .loadOptional(email);
+    }
+    
+    @Override
+    public Optional<User> findByIdAndIsEnabledTrue(UUID id) {
+        return Optional.ofNullable(entityManager.find(User.class, id))
+            .filter(user -> Boolean.TRUE.equals(user.getIsEnabled()));
+    }
+}
@@ -0,0 +1,20 @@
+package com.euem.server.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The columns of a profile response, read without materializing a {@code User} entity.
+ */
+public record UserProfileView(
+    UUID id,
+    String email,
+    String firstName,
+    String lastName,
+    Boolean isVerified,
+    Boolean isEnabled,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt,
+    Integer roleMask
+) {
+}
@@ -1,18 +1,38 @@
 package com.euem.server.repository;
 
 import com.euem.server.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
-    
-    Optional<User> findByEmail(String email);
+public interface UserRepository extends JpaRepository<User, UUID>, UserLookupRepository {
     
     boolean existsByEmail(String email);
     
-    Optional<User> findByIdAndIsEnabledTrue(UUID id);
+    @Query("SELECT new com.euem.server.repository.UserProfileView(u.id, u.email, u.firstName, u.lastName, " +
+           "u.isVerified, u.isEnabled, u.createdAt, u.updatedAt, u.roleMask) " +
+           "FROM User u WHERE u.id = :id AND u.isEnabled = true")
+    Optional<UserProfileView> findProfileById(@Param("id") UUID id);
+    
+    // A query rather than a cached entity load; tokens must be checked against what is committed, not a node-local copy
+    @Query("SELECT new com.euem.server.repository.UserSecurityState(u.securityVersion, u.isEnabled) " +
+           "FROM User u WHERE u.id = :id")
+    Optional<UserSecurityState> findSecurityStateById(@Param("id") UUID id);
+    
+    // Authentication reads the committed row: the second-level cache is node-local and misses changes made elsewhere
+    @Query("SELECT u FROM User u WHERE u.email = :email")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    Optional<User> findCommittedByEmail(@Param("email") String email);
+    
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    Optional<User> findCommittedById(@Param("id") UUID id);
 }
@@ -0,0 +1,12 @@
+package com.euem.server.repository;
+
+/**
+ * What an access token is checked against: the user's security version and whether the account is enabled.
+ */
+public record UserSecurityState(int version, boolean enabled) {
+    
+    // Used by the JPQL constructor expression, which yields the nullable column types
+    public UserSecurityState(Integer version, Boolean enabled) {
+        this(version != null ? version : 0, Boolean.TRUE.equals(enabled));
+    }
+}
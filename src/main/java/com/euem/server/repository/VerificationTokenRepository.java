@@ -8,29 +8,64 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface VerificationTokenRepository extends JpaRepository<VerificationToken, UUID> {
     
-    Optional<VerificationToken> findByOtpCodeAndTypeAndExpiryTimeAfter(
-        String otpCode, 
-        VerificationToken.TokenType type, 
-        LocalDateTime now
+    // Normally one row per (user, type); newest first in case a partitioned table was left with more than one.
+    // The code itself is compared by the caller
+    @Query("SELECT vt FROM VerificationToken vt JOIN FETCH vt.user u " +
+           "WHERE u.email = :email AND vt.type = :type AND vt.expiryTime > :now ORDER BY vt.expiryTime DESC")
+    List<VerificationToken> findActiveByUserEmailAndType(
+        @Param("email") String email,
+        @Param("type") VerificationToken.TokenType type,
+        @Param("now") LocalDateTime now
     );
     
-    Optional<VerificationToken> findByUserAndTypeAndExpiryTimeAfter(
+    List<VerificationToken> findByUserAndTypeAndExpiryTimeAfterOrderByExpiryTimeDesc(
         com.euem.server.entity.User user, 
         VerificationToken.TokenType type, 
         LocalDateTime now
     );
     
-	@Modifying
-	@Query(value = "DELETE FROM verification_tokens WHERE user_id = :userId AND CAST(type AS TEXT) = :type", nativeQuery = true)
-	void deleteByUserAndType(@Param("userId") UUID userId, @Param("type") String type);
+    // Held until the caller's transaction ends. Serializes delete-then-insert per user and type, which the
+    // unique constraint would otherwise do; a partitioned table cannot carry that constraint
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtext(CAST(:userId AS text)), :typeKey)) l",
+           nativeQuery = true)
+    int lockUserAndType(@Param("userId") UUID userId, @Param("typeKey") int typeKey);
+    
+    // Claims a resend: only one caller per cooldown window gets 1
+    @Modifying
+    @Query("UPDATE VerificationToken vt SET vt.lastSentAt = :now WHERE vt.id = :id " +
+           "AND (vt.lastSentAt IS NULL OR vt.lastSentAt <= :cooldownStart)")
+    int markResent(
+        @Param("id") UUID id,
+        @Param("now") LocalDateTime now,
+        @Param("cooldownStart") LocalDateTime cooldownStart
+    );
+    
+    // The parameter is cast to the column's enum type, never the column itself, so (user_id, type) stays an index condition
+    String DELETE_BY_USER_AND_TYPE_SQL =
+        "DELETE FROM verification_tokens WHERE user_id = :userId AND type = CAST(:type AS verification_token_type)";
+    
+    String DELETE_ALL_BY_USER_SQL = "DELETE FROM verification_tokens WHERE user_id = :userId";
+    
+    @Modifying
+    @Query(value = DELETE_BY_USER_AND_TYPE_SQL, nativeQuery = true)
+    int deleteByUserAndType(@Param("userId") UUID userId, @Param("type") String type);
     
     @Modifying
-    @Query("DELETE FROM VerificationToken vt WHERE vt.expiryTime < :now")
-    void deleteExpiredTokens(@Param("now") LocalDateTime now);
+    @Query(value = DELETE_ALL_BY_USER_SQL, nativeQuery = true)
+    int deleteAllByUserId(@Param("userId") UUID userId);
+    
+    // Deletes at most batchSize expired rows; rows locked by a concurrent verification are left for the next batch
+    @Modifying
+    @Query(value = "DELETE FROM verification_tokens WHERE id IN (" +
+                   "SELECT id FROM verification_tokens WHERE expiry_time < :now " +
+                   "ORDER BY expiry_time LIMIT :batchSize FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+    
+    long countByExpiryTimeBefore(LocalDateTime now);
 }
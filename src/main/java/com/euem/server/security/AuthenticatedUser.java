@@ -0,0 +1,50 @@
+package com.euem.server.security;
+
+import com.euem.server.entity.Role;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable identity of the caller, built either from the database or from JWT claims.
+ */
+public final class AuthenticatedUser {
+    
+    private final UUID id;
+    private final String email;
+    private final Set<Role.RoleName> roles;
+    private final boolean enabled;
+    private final int securityVersion;
+    
+    public AuthenticatedUser(UUID id, String email, Set<Role.RoleName> roles, boolean enabled, int securityVersion) {
+        this.id = id;
+        this.email = email;
+        this.roles = roles.isEmpty()
+            ? Collections.emptySet()
+            : Collections.unmodifiableSet(EnumSet.copyOf(roles));
+        this.enabled = enabled;
+        this.securityVersion = securityVersion;
+    }
+    
+    public UUID getId() {
+        return id;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public Set<Role.RoleName> getRoles() {
+        return roles;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public int getSecurityVersion() {
+        return securityVersion;
+    }
+}
@@ -0,0 +1,75 @@
+package com.euem.server.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the BCrypt cost for this deployment. In {@code calibrated} mode the cost is measured at startup
+ * as the highest one whose hash time stays within the configured target.
+ */
+@Component
+public class BCryptCostCalibrator {
+
+	private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+	private static final String CALIBRATION_INPUT = "calibration-password";
+
+	@Value("${app.password.encoder.mode:fixed}")
+	private String mode;
+
+	@Value("${app.password.encoder.strength:10}")
+	private int strength;
+
+	@Value("${app.password.encoder.target-millis:250}")
+	private long targetMillis;
+
+	@Value("${app.password.encoder.min-strength:10}")
+	private int minStrength;
+
+	@Value("${app.password.encoder.max-strength:14}")
+	private int maxStrength;
+
+	public int resolveStrength() {
+		if (!"calibrated".equalsIgnoreCase(mode)) {
+			log.info("Using fixed BCrypt cost {}", strength);
+			return strength;
+		}
+
+		new BCryptPasswordEncoder(4).encode(CALIBRATION_INPUT);
+
+		int chosen = minStrength;
+		long chosenMillis = -1;
+		for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+			long millis = measure(candidate);
+			if (millis > targetMillis) {
+				if (chosenMillis < 0) {
+					chosenMillis = millis;
+				}
+				break;
+			}
+			chosen = candidate;
+			chosenMillis = millis;
+			// Each extra cost step doubles the work, so stop once the next one cannot fit
+			if (millis * 2 > targetMillis) {
+				break;
+			}
+		}
+
+		log.info("Calibrated BCrypt cost {} ({} ms per hash, target {} ms)", chosen, chosenMillis, targetMillis);
+		return chosen;
+	}
+
+	private long measure(int cost) {
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < 2; i++) {
+			long start = System.nanoTime();
+			encoder.encode(CALIBRATION_INPUT);
+			best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+		}
+		return best;
+	}
+}
@@ -0,0 +1,68 @@
+package com.euem.server.security;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request wrapper that serves an already read body, so a filter can inspect it before the controller does.
+ */
+class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+	private final byte[] body;
+
+	CachedBodyHttpServletRequest(HttpServletRequest request, byte[] body) {
+		super(request);
+		this.body = body;
+	}
+
+	byte[] getBody() {
+		return body;
+	}
+
+	@Override
+	public ServletInputStream getInputStream() {
+		ByteArrayInputStream input = new ByteArrayInputStream(body);
+		return new ServletInputStream() {
+			@Override
+			public boolean isFinished() {
+				return input.available() == 0;
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setReadListener(ReadListener readListener) {
+				throw new UnsupportedOperationException("Asynchronous reads are not supported");
+			}
+
+			@Override
+			public int read() {
+				return input.read();
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) {
+				return input.read(buffer, offset, length);
+			}
+		};
+	}
+
+	@Override
+	public BufferedReader getReader() {
+		Charset charset = getCharacterEncoding() != null
+			? Charset.forName(getCharacterEncoding())
+			: StandardCharsets.UTF_8;
+		return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+	}
+}
@@ -0,0 +1,34 @@
+package com.euem.server.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that asks for a rehash when the stored cost is below the configured one. Stronger hashes
+ * are kept, so a lower calibrated cost on slower hardware never weakens existing passwords. Unlike the
+ * stock encoder, a hash it cannot parse is left alone instead of failing the login.
+ */
+public class CostAwareBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    
+    private final int strength;
+    
+    public CostAwareBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+    
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) < strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    public int getStrength() {
+        return strength;
+    }
+}
@@ -2,23 +2,76 @@ package com.euem.server.security;
 
 import com.euem.server.entity.User;
 import com.euem.server.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+    
+    private static final Logger log = LoggerFactory.getLogger(CustomUserDetailsService.class);
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private SecurityVersionRegistry securityVersionRegistry;
+    
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    /**
+     * Serves the principal from {@link PrincipalCache} unless {@link SecurityVersionRegistry} shows the user
+     * changed since it was cached. Evicts only reach the local node, so a password change or account deletion
+     * made on another node is caught here, within {@code recheck-seconds}, instead of after the cache TTL.
+     */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
+        CustomUserPrincipal principal = principalCache.get(email, () -> loadPrincipal(email));
+        if (isCurrent(principal)) {
+            return principal;
+        }
+        log.debug("Reloading stale cached principal for user id: {}", principal.getUser().getId());
+        principalCache.evict(email);
+        return principalCache.get(email, () -> loadPrincipal(email));
+    }
+    
+    /**
+     * Called by the authentication provider after a successful login when the stored hash uses a
+     * different algorithm or a lower cost than the current encoder.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        CustomUserPrincipal principal = (CustomUserPrincipal) user;
+        // Through the entity rather than a bulk UPDATE, which would drop the whole users cache region
+        // The committed row, so a stale cached copy cannot write old columns back
+        userRepository.findCommittedById(principal.getUser().getId())
+            .ifPresent(entity -> entity.setPassword(newPassword));
+        principalCache.evict(principal.getUsername());
+        log.info("Rehashed password for user id: {}", principal.getUser().getId());
+        return principal.withPassword(newPassword);
+    }
+    
+    private boolean isCurrent(CustomUserPrincipal principal) {
+        AuthenticatedUser user = principal.getUser();
+        return securityVersionRegistry.current(user.getId())
+            .map(state -> state.version() <= user.getSecurityVersion() && state.enabled() == user.isEnabled())
+            .orElse(false);
+    }
+    
+    private CustomUserPrincipal loadPrincipal(String email) {
+        User user = userRepository.findCommittedByEmail(email)
             .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
         
-        return CustomUserPrincipal.create(user);
+        CustomUserPrincipal principal = CustomUserPrincipal.create(user);
+        securityVersionRegistry.observe(user.getId(), principal.getUser().getSecurityVersion(), principal.isEnabled());
+        return principal;
     }
 }
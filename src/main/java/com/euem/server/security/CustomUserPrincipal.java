@@ -1,35 +1,92 @@
 package com.euem.server.security;
 
+import com.euem.server.entity.Role;
 import com.euem.server.entity.User;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Set;
 
 public class CustomUserPrincipal implements UserDetails {
     
-    private User user;
+    private final AuthenticatedUser user;
     
-    public CustomUserPrincipal(User user) {
+    private final String password;
+    
+    private final Collection<? extends GrantedAuthority> authorities;
+    
+    private CustomUserPrincipal(AuthenticatedUser user, String password) {
         this.user = user;
+        this.password = password;
+        this.authorities = toAuthorities(user.getRoles());
     }
     
     public static CustomUserPrincipal create(User user) {
-        return new CustomUserPrincipal(user);
+        Set<Role.RoleName> roles = user.getRoleNames();
+        int securityVersion = user.getSecurityVersion() != null ? user.getSecurityVersion() : 0;
+        
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser(
+            user.getId(), user.getEmail(), roles, Boolean.TRUE.equals(user.getIsEnabled()), securityVersion);
+        return new CustomUserPrincipal(authenticatedUser, user.getPassword());
+    }
+    
+    /**
+     * Builds a principal from verified token claims and the account state {@link SecurityVersionRegistry}
+     * confirmed for them. It carries no password.
+     */
+    public static CustomUserPrincipal fromClaims(JwtClaims claims, boolean enabled) {
+        AuthenticatedUser authenticatedUser = new AuthenticatedUser(
+            claims.userId(), claims.subject(), claims.roles(), enabled, claims.securityVersion());
+        return new CustomUserPrincipal(authenticatedUser, null);
+    }
+    
+    public CustomUserPrincipal withPassword(String newPassword) {
+        return new CustomUserPrincipal(user, newPassword);
+    }
+    
+    // Every combination of roles maps to one shared, immutable authority list
+    private static final List<List<GrantedAuthority>> AUTHORITY_SETS = buildAuthoritySets();
+    
+    private static List<List<GrantedAuthority>> buildAuthoritySets() {
+        Role.RoleName[] roleNames = Role.RoleName.values();
+        List<SimpleGrantedAuthority> authorities = Arrays.stream(roleNames)
+            .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
+            .toList();
+        
+        List<List<GrantedAuthority>> sets = new ArrayList<>(1 << roleNames.length);
+        for (int mask = 0; mask < (1 << roleNames.length); mask++) {
+            List<GrantedAuthority> set = new ArrayList<>();
+            for (int i = 0; i < roleNames.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    set.add(authorities.get(i));
+                }
+            }
+            sets.add(List.copyOf(set));
+        }
+        return List.copyOf(sets);
+    }
+    
+    private static List<GrantedAuthority> toAuthorities(Set<Role.RoleName> roles) {
+        int mask = 0;
+        for (Role.RoleName role : roles) {
+            mask |= 1 << role.ordinal();
+        }
+        return AUTHORITY_SETS.get(mask);
     }
     
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-            .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName().name()))
-            .collect(Collectors.toList());
+        return authorities;
     }
     
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
     
     @Override
@@ -54,10 +111,10 @@ public class CustomUserPrincipal implements UserDetails {
     
     @Override
     public boolean isEnabled() {
-        return user.getIsEnabled();
+        return user.isEnabled();
     }
     
-    public User getUser() {
+    public AuthenticatedUser getUser() {
         return user;
     }
 }
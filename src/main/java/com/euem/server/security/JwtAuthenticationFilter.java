@@ -1,5 +1,6 @@
 package com.euem.server.security;
 
+import com.euem.server.repository.UserSecurityState;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,6 +15,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -24,6 +26,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	@Autowired
 	private CustomUserDetailsService customUserDetailsService;
 
+	@Autowired
+	private SecurityVersionRegistry securityVersionRegistry;
+
 	@Override
 	protected void doFilterInternal(
 			@org.springframework.lang.NonNull HttpServletRequest request,
@@ -33,10 +38,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 		try {
 			String jwt = getJwtFromRequest(request);
 
-			if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-				String username = tokenProvider.getUsernameFromToken(jwt);
+			Optional<JwtClaims> claims = StringUtils.hasText(jwt) ? tokenProvider.verifyToken(jwt) : Optional.empty();
 
-				UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+			UserDetails userDetails = claims.map(this::resolvePrincipal).orElse(null);
+
+			if (userDetails != null) {
 				UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
 					userDetails, null, userDetails.getAuthorities());
 				authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -50,6 +56,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 		filterChain.doFilter(request, response);
 	}
 
+	private UserDetails resolvePrincipal(JwtClaims claims) {
+		if (!claims.hasIdentity()) {
+			// Tokens issued before identity claims were embedded still need a lookup
+			return customUserDetailsService.loadUserByUsername(claims.subject());
+		}
+		UserSecurityState state = securityVersionRegistry.current(claims.userId()).orElse(null);
+		if (state == null || !state.enabled() || claims.securityVersion() < state.version()) {
+			logger.debug("Rejecting token with stale security version or disabled account for user " + claims.userId());
+			return null;
+		}
+		return CustomUserPrincipal.fromClaims(claims, state.enabled());
+	}
+
 	private String getJwtFromRequest(HttpServletRequest request) {
 		String bearerToken = request.getHeader("Authorization");
 		if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,55 @@
+package com.euem.server.security;
+
+import com.euem.server.entity.Role;
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public record JwtClaims(
+    String subject,
+    Instant issuedAt,
+    Instant expiresAt,
+    UUID userId,
+    Set<Role.RoleName> roles,
+    Integer securityVersion
+) {
+    
+    static final String USER_ID = "uid";
+    static final String ROLES = "roles";
+    static final String SECURITY_VERSION = "sv";
+    
+    static JwtClaims from(Claims claims) {
+        String userId = claims.get(USER_ID, String.class);
+        
+        Set<Role.RoleName> roles = EnumSet.noneOf(Role.RoleName.class);
+        List<?> roleNames = claims.get(ROLES, List.class);
+        if (roleNames != null) {
+            roleNames.forEach(name -> roles.add(Role.RoleName.valueOf(name.toString())));
+        }
+        
+        return new JwtClaims(
+            claims.getSubject(),
+            claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+            claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+            userId != null ? UUID.fromString(userId) : null,
+            Collections.unmodifiableSet(roles),
+            claims.get(SECURITY_VERSION, Integer.class)
+        );
+    }
+    
+    public boolean isExpired(Instant now) {
+        return expiresAt == null || !expiresAt.isAfter(now);
+    }
+    
+    /**
+     * Tokens issued before identity claims were embedded only carry the subject.
+     */
+    public boolean hasIdentity() {
+        return userId != null && securityVersion != null;
+    }
+}
@@ -1,13 +1,18 @@
 package com.euem.server.security;
 
+import com.euem.server.util.TokenHasher;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Optional;
 
 @Component
 public class JwtTokenProvider {
@@ -18,12 +23,27 @@ public class JwtTokenProvider {
     @Value("${app.jwt.expiration}")
     private int jwtExpirationInMs;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    private SecretKey signingKey;
+    
+    private JwtParser jwtParser;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
     }
     
     public String generateToken(Authentication authentication) {
-        CustomUserPrincipal userPrincipal = (CustomUserPrincipal) authentication.getPrincipal();
+        return generateToken((CustomUserPrincipal) authentication.getPrincipal());
+    }
+    
+    public String generateToken(CustomUserPrincipal userPrincipal) {
+        AuthenticatedUser user = userPrincipal.getUser();
         Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs);
         
         return Jwts.builder()
@@ -31,29 +51,44 @@ public class JwtTokenProvider {
             .setIssuedAt(new Date())
             .setExpiration(expiryDate)
             .claim("email", userPrincipal.getUsername())
-            .signWith(getSigningKey())
+            .claim(JwtClaims.USER_ID, user.getId().toString())
+            .claim(JwtClaims.ROLES, user.getRoles().stream().map(Enum::name).toList())
+            .claim(JwtClaims.SECURITY_VERSION, user.getSecurityVersion())
+            .signWith(signingKey)
             .compact();
     }
     
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-            .setSigningKey(getSigningKey())
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+    /**
+     * Verifies the token signature and expiry once and returns its claims.
+     * Tokens seen before are answered from {@link VerifiedTokenCache} without re-verifying.
+     */
+    public Optional<JwtClaims> verifyToken(String token) {
+        if (!StringUtils.hasText(token)) {
+            return Optional.empty();
+        }
+        
+        String digest = TokenHasher.sha256Hex(token);
+        JwtClaims cached = verifiedTokenCache.get(digest);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
         
-        return claims.getSubject();
-    }
-    
-    public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
-            return true;
+            JwtClaims claims = JwtClaims.from(jwtParser.parseClaimsJws(token).getBody());
+            verifiedTokenCache.put(digest, claims);
+            return Optional.of(claims);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
     }
+    
+    public String getUsernameFromToken(String token) {
+        return verifyToken(token)
+            .map(JwtClaims::subject)
+            .orElseThrow(() -> new JwtException("Invalid JWT token"));
+    }
+    
+    public boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
+    }
 }
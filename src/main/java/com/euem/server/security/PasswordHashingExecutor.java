@@ -0,0 +1,126 @@
+package com.euem.server.security;
+
+import com.euem.server.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a dedicated pool sized to the CPU count with a bounded queue, so a login burst
+ * cannot occupy every request thread. When the queue is full callers fail fast with a 503.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+	private static final Logger log = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${app.password.hashing.threads:0}")
+	private int threads;
+
+	@Value("${app.password.hashing.queue-capacity:64}")
+	private int queueCapacity;
+
+	@Value("${app.password.hashing.timeout-ms:5000}")
+	private long timeoutMs;
+
+	@Value("${app.password.hashing.retry-after-seconds:1}")
+	private long retryAfterSeconds;
+
+	private ThreadPoolExecutor executor;
+
+	private Timer waitTimer;
+
+	private Timer hashTimer;
+
+	private Counter rejectedCounter;
+
+	@PostConstruct
+	void init() {
+		int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		AtomicInteger threadNumber = new AtomicInteger();
+		executor = new ThreadPoolExecutor(
+			poolSize,
+			poolSize,
+			0L,
+			TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(queueCapacity),
+			runnable -> {
+				Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			},
+			new ThreadPoolExecutor.AbortPolicy()
+		);
+
+		waitTimer = Timer.builder("euem.password.hashing.wait")
+			.description("Time password hashing tasks spend queued")
+			.register(meterRegistry);
+		hashTimer = Timer.builder("euem.password.hashing.duration")
+			.description("Time spent hashing or checking a password")
+			.register(meterRegistry);
+		rejectedCounter = Counter.builder("euem.password.hashing.rejected")
+			.register(meterRegistry);
+		Gauge.builder("euem.password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+			.register(meterRegistry);
+		Gauge.builder("euem.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+			.register(meterRegistry);
+
+		log.info("Password hashing pool started with {} threads and queue capacity {}", poolSize, queueCapacity);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	public <T> T execute(Supplier<T> task) {
+		long enqueuedAt = System.nanoTime();
+		Future<T> future;
+		try {
+			future = executor.submit(() -> {
+				long startedAt = System.nanoTime();
+				waitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+				try {
+					return task.get();
+				} finally {
+					hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejectedCounter.increment();
+			throw new ServiceOverloadedException("Server is busy, please retry shortly", retryAfterSeconds, e);
+		}
+
+		try {
+			return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			rejectedCounter.increment();
+			throw new ServiceOverloadedException("Server is busy, please retry shortly", retryAfterSeconds, e);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Password hashing failed", e.getCause());
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.euem.server.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-based cache of principals loaded by {@link CustomUserDetailsService}, keyed by normalized email.
+ * {@code UserService} evicts entries whenever it changes state that a principal carries.
+ * <p>
+ * A load can read the database before a concurrent change commits and finish after that change's evict.
+ * Every evict therefore bumps a generation for the key first, and a load only stores its result if the
+ * generation is unchanged since it started; otherwise the stale principal is returned but not cached.
+ */
+@Component
+public class PrincipalCache implements MeterBinder {
+
+	// Generations are striped by key hash; an evict of a colliding key only costs a skipped put
+	private static final int GENERATION_STRIPES = 1024;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final LongAdder invalidations = new LongAdder();
+
+	@Value("${app.security.principal-cache.max-size:10000}")
+	private int maxSize;
+
+	@Value("${app.security.principal-cache.ttl-seconds:300}")
+	private long ttlSeconds;
+
+	public CustomUserPrincipal get(String email, Supplier<CustomUserPrincipal> loader) {
+		String key = normalize(email);
+		long now = System.nanoTime();
+
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			if (now - entry.expiresAt() < 0) {
+				hits.increment();
+				return entry.principal();
+			}
+			if (entries.remove(key, entry)) {
+				evictions.increment();
+			}
+		}
+
+		misses.increment();
+		int stripe = stripe(key);
+		long generation = generations.get(stripe);
+		CustomUserPrincipal principal = loader.get();
+		if (maxSize > 0 && ttlSeconds > 0) {
+			if (entries.size() >= maxSize) {
+				makeRoom(now);
+			}
+			Entry loaded = new Entry(principal, now + ttlSeconds * 1_000_000_000L);
+			// Checked inside compute so an evict cannot slip between the check and the put
+			entries.compute(key, (k, current) -> generations.get(stripe) == generation ? loaded : current);
+		}
+		return principal;
+	}
+
+	public void evict(String email) {
+		if (email == null) {
+			return;
+		}
+		String key = normalize(email);
+		generations.incrementAndGet(stripe(key));
+		if (entries.remove(key) != null) {
+			invalidations.increment();
+		}
+	}
+
+	public void clear() {
+		for (int i = 0; i < GENERATION_STRIPES; i++) {
+			generations.incrementAndGet(i);
+		}
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public double hitRatio() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return total == 0 ? 0.0 : (double) hitCount / total;
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public long getInvalidationCount() {
+		return invalidations.sum();
+	}
+
+	static String normalize(String email) {
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static int stripe(String key) {
+		return (key.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+	}
+
+	private void makeRoom(long now) {
+		entries.entrySet().removeIf(entry -> {
+			if (now - entry.getValue().expiresAt() >= 0) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		});
+
+		int target = maxSize - Math.max(1, maxSize / 8);
+		Iterator<String> keys = entries.keySet().iterator();
+		while (entries.size() > target && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+			evictions.increment();
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("euem.security.principal.cache.size", entries, Map::size)
+			.register(registry);
+		Gauge.builder("euem.security.principal.cache.hit.ratio", this, PrincipalCache::hitRatio)
+			.register(registry);
+		FunctionCounter.builder("euem.security.principal.cache.evictions", evictions, LongAdder::sum)
+			.tag("cause", "capacity-or-expiry")
+			.register(registry);
+		FunctionCounter.builder("euem.security.principal.cache.evictions", invalidations, LongAdder::sum)
+			.tag("cause", "invalidation")
+			.register(registry);
+	}
+
+	private record Entry(CustomUserPrincipal principal, long expiresAt) {
+	}
+}
@@ -0,0 +1,145 @@
+package com.euem.server.security;
+
+import com.euem.server.config.RateLimitProperties;
+import com.euem.server.util.TokenBucketRateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Throttles the public {@code /auth} endpoints per client IP and per target email before any
+ * database or password work happens. The client IP is the forwarded address resolved under
+ * {@code server.forward-headers-strategy}, so clients behind the same reverse proxy get their own buckets.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	private static final String AUTH_PREFIX = "/auth/";
+
+	// Endpoints that bind the email from a request parameter; every other endpoint takes it from the JSON body
+	private static final Set<String> QUERY_EMAIL_ENDPOINTS = Set.of("resend-otp");
+
+	// Bodies larger than this are rejected on endpoints with an email limit; auth requests are far smaller
+	private static final int MAX_INSPECTED_BODY = 16 * 1024;
+
+	@Autowired
+	private RateLimitProperties properties;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	// Separate limiters, so churn through attacker-chosen email keys cannot shed the per-IP buckets
+	private TokenBucketRateLimiter ipLimiter;
+
+	private TokenBucketRateLimiter emailLimiter;
+
+	@PostConstruct
+	void init() {
+		ipLimiter = new TokenBucketRateLimiter(properties.getMaxKeys());
+		emailLimiter = new TokenBucketRateLimiter(properties.getMaxKeys());
+	}
+
+	@Override
+	protected boolean shouldNotFilter(@org.springframework.lang.NonNull HttpServletRequest request) {
+		return !properties.isEnabled()
+			|| !"POST".equalsIgnoreCase(request.getMethod())
+			|| endpointName(request) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(
+			@org.springframework.lang.NonNull HttpServletRequest request,
+			@org.springframework.lang.NonNull HttpServletResponse response,
+			@org.springframework.lang.NonNull FilterChain filterChain)
+			throws ServletException, IOException {
+		String endpoint = endpointName(request);
+		RateLimitProperties.EndpointLimit limit = properties.getEndpoints().get(endpoint);
+
+		String clientIp = request.getRemoteAddr();
+		long waitMillis = ipLimiter.tryAcquire(
+			endpoint + ":" + clientIp, limit.getIpCapacity(), limit.getIpPeriod());
+
+		HttpServletRequest effectiveRequest = request;
+		if (waitMillis == 0 && limit.getEmailCapacity() > 0) {
+			Set<String> emails = new LinkedHashSet<>();
+			if (!QUERY_EMAIL_ENDPOINTS.contains(endpoint)) {
+				// Read up to the cap whatever Content-Length says, so chunked or padded bodies cannot skip the email limit
+				byte[] body = request.getContentLengthLong() > MAX_INSPECTED_BODY
+					? null
+					: request.getInputStream().readNBytes(MAX_INSPECTED_BODY + 1);
+				if (body == null || body.length > MAX_INSPECTED_BODY) {
+					logger.warn("Rejecting oversized body for " + request.getRequestURI() + " from " + clientIp);
+					reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+					return;
+				}
+				effectiveRequest = new CachedBodyHttpServletRequest(request, body);
+				addEmail(emails, extractEmail(body));
+			}
+			// On JSON endpoints the controller ignores ?email=, but a different one is charged too rather than trusted
+			addEmail(emails, request.getParameter("email"));
+			for (String email : emails) {
+				waitMillis = emailLimiter.tryAcquire(endpoint + ":" + email, limit.getEmailCapacity(), limit.getEmailPeriod());
+				if (waitMillis > 0) {
+					break;
+				}
+			}
+		}
+
+		if (waitMillis > 0) {
+			long retryAfterSeconds = Math.max(1, (waitMillis + 999) / 1000);
+			logger.warn("Rate limit exceeded for " + request.getRequestURI() + " from " + clientIp);
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+			reject(response, HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded, retry later");
+			return;
+		}
+
+		filterChain.doFilter(effectiveRequest, response);
+	}
+
+	private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+		response.setStatus(status.value());
+		response.setContentType("application/json");
+		response.getWriter().write("{\"error\":\"" + status.getReasonPhrase() + "\",\"message\":\"" + message + "\"}");
+	}
+
+	private String endpointName(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		if (!path.startsWith(AUTH_PREFIX)) {
+			return null;
+		}
+		String name = path.substring(AUTH_PREFIX.length());
+		return properties.getEndpoints().containsKey(name) ? name : null;
+	}
+
+	private static void addEmail(Set<String> emails, String email) {
+		if (StringUtils.hasText(email)) {
+			emails.add(email.trim().toLowerCase(Locale.ROOT));
+		}
+	}
+
+	private String extractEmail(byte[] body) {
+		try {
+			JsonNode tree = objectMapper.readTree(body);
+			JsonNode email = tree != null ? tree.get("email") : null;
+			return email != null && email.isTextual() ? email.asText() : null;
+		} catch (IOException e) {
+			// Malformed or non-JSON bodies are rejected by the controller; only the IP limit applies
+			return null;
+		}
+	}
+}
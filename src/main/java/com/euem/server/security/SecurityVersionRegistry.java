@@ -0,0 +1,64 @@
+package com.euem.server.security;
+
+import com.euem.server.repository.UserRepository;
+import com.euem.server.repository.UserSecurityState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Security version and enabled flag per user, checked by {@link JwtAuthenticationFilter} for every
+ * token-based request. The database is the source of truth: a user this node has not seen, or has not
+ * re-checked within {@code recheck-seconds}, is read back from {@code users}, so a restart or a change made
+ * on another node can only be missed for that long. Local changes are recorded at commit and apply at once.
+ */
+@Component
+public class SecurityVersionRegistry {
+
+	private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Value("${app.jwt.security-version.max-tracked:100000}")
+	private int maxTracked;
+
+	@Value("${app.jwt.security-version.recheck-seconds:30}")
+	private long recheckSeconds;
+
+	public void record(UUID userId, int version, boolean enabled) {
+		entries.merge(userId, new Entry(version, enabled, System.nanoTime()),
+			(current, update) -> update.version() >= current.version() ? update : current);
+	}
+
+	public void observe(UUID userId, int version, boolean enabled) {
+		if (entries.size() < maxTracked || entries.containsKey(userId)) {
+			record(userId, version, enabled);
+		}
+	}
+
+	/**
+	 * The user's current state, or empty when the user no longer exists. Beyond {@code max-tracked}
+	 * users every call reads the database.
+	 */
+	public Optional<UserSecurityState> current(UUID userId) {
+		Entry entry = entries.get(userId);
+		if (entry != null && System.nanoTime() - entry.checkedAt() < TimeUnit.SECONDS.toNanos(recheckSeconds)) {
+			return Optional.of(new UserSecurityState(entry.version(), entry.enabled()));
+		}
+		Optional<UserSecurityState> state = userRepository.findSecurityStateById(userId);
+		state.ifPresentOrElse(
+			loaded -> observe(userId, loaded.version(), loaded.enabled()),
+			() -> entries.remove(userId));
+		return state;
+	}
+
+	private record Entry(int version, boolean enabled, long checkedAt) {
+	}
+}
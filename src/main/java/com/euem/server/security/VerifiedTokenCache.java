@@ -0,0 +1,111 @@
+package com.euem.server.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of already verified JWTs, keyed by the SHA-256 digest of the raw token.
+ * Entries are dropped once the token itself expires.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+	private final Map<String, JwtClaims> entries = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	@Value("${app.jwt.verified-cache.max-size:10000}")
+	private int maxSize;
+
+	public JwtClaims get(String digest) {
+		JwtClaims claims = entries.get(digest);
+		if (claims != null) {
+			if (!claims.isExpired(Instant.now())) {
+				hits.increment();
+				return claims;
+			}
+			if (entries.remove(digest, claims)) {
+				evictions.increment();
+			}
+		}
+		misses.increment();
+		return null;
+	}
+
+	public void put(String digest, JwtClaims claims) {
+		if (maxSize <= 0 || claims.expiresAt() == null) {
+			return;
+		}
+		if (entries.size() >= maxSize) {
+			makeRoom();
+		}
+		entries.put(digest, claims);
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	// Drop expired tokens first; if the cache is still full of live tokens, shed an
+	// eighth of it so the next puts do not rescan the whole map.
+	private void makeRoom() {
+		Instant now = Instant.now();
+		entries.entrySet().removeIf(entry -> {
+			if (entry.getValue().isExpired(now)) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		});
+
+		int target = maxSize - Math.max(1, maxSize / 8);
+		Iterator<String> keys = entries.keySet().iterator();
+		while (entries.size() > target && keys.hasNext()) {
+			keys.next();
+			keys.remove();
+			evictions.increment();
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("euem.jwt.verified.cache", hits, LongAdder::sum)
+			.tag("result", "hit")
+			.description("JWT verifications served from the verified-token cache")
+			.register(registry);
+		FunctionCounter.builder("euem.jwt.verified.cache", misses, LongAdder::sum)
+			.tag("result", "miss")
+			.description("JWT verifications that required a signature check")
+			.register(registry);
+		FunctionCounter.builder("euem.jwt.verified.cache.evictions", evictions, LongAdder::sum)
+			.register(registry);
+		Gauge.builder("euem.jwt.verified.cache.size", entries, Map::size)
+			.register(registry);
+	}
+}
@@ -0,0 +1,152 @@
+package com.euem.server.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Deletes expired rows in chunks of {@code batchSize}, each in its own short transaction, so a large
+ * backlog never turns into one long lock or one large WAL burst. A run stops after
+ * {@code maxBatchesPerRun}; whatever is left is reported as backlog and picked up by the next run.
+ * Publishes {@code <prefix>.purged}, {@code <prefix>.duration} and {@code <prefix>.backlog}.
+ */
+final class BatchedPurge {
+
+	private static final Logger log = LoggerFactory.getLogger(BatchedPurge.class);
+
+	@FunctionalInterface
+	interface BatchDelete {
+
+		/**
+		 * Deletes up to {@code batchSize} rows that expired before {@code now} and returns how many were removed.
+		 */
+		int deleteBatch(LocalDateTime now, int batchSize);
+	}
+
+	/**
+	 * @param batchPauseMs pause between chunks so replicas and autovacuum keep up during a large purge
+	 */
+	record Settings(int batchSize, int maxBatchesPerRun, long batchPauseMs) {
+	}
+
+	private final String subject;
+
+	private final Settings settings;
+
+	private final BatchDelete delete;
+
+	private final ToLongFunction<LocalDateTime> countExpired;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final AtomicLong backlog = new AtomicLong();
+
+	private final Counter purgedCounter;
+
+	private final Timer runTimer;
+
+	private ScheduledExecutorService executor;
+
+	/**
+	 * @param subject what is purged, in plural, e.g. {@code "verification tokens"}; used in meter descriptions and logs
+	 */
+	BatchedPurge(String meterPrefix, String subject, Settings settings, BatchDelete delete,
+			ToLongFunction<LocalDateTime> countExpired, PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry) {
+		this.subject = subject;
+		this.settings = settings;
+		this.delete = delete;
+		this.countExpired = countExpired;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.purgedCounter = Counter.builder(meterPrefix + ".purged")
+			.description("Expired " + subject + " deleted")
+			.register(meterRegistry);
+		this.runTimer = Timer.builder(meterPrefix + ".duration")
+			.description("Time spent per purge run")
+			.register(meterRegistry);
+		Gauge.builder(meterPrefix + ".backlog", backlog, AtomicLong::get)
+			.description("Expired " + subject + " left after the last purge run")
+			.register(meterRegistry);
+	}
+
+	void start(String threadName, long intervalMs) {
+		ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, threadName);
+			thread.setDaemon(true);
+			return thread;
+		});
+		pool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		executor = pool;
+		executor.scheduleWithFixedDelay(this::runSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Deletes expired rows batch by batch and returns how many were removed.
+	 */
+	int run() {
+		long start = System.nanoTime();
+		LocalDateTime now = LocalDateTime.now();
+		int batchSize = settings.batchSize();
+		int total = 0;
+		int batches = 0;
+		int deleted;
+		do {
+			Integer result = transactionTemplate.execute(status -> delete.deleteBatch(now, batchSize));
+			deleted = result != null ? result : 0;
+			total += deleted;
+			batches++;
+			if (deleted == batchSize && batches < settings.maxBatchesPerRun() && !pause()) {
+				break;
+			}
+		} while (deleted == batchSize && batches < settings.maxBatchesPerRun());
+
+		// Only a run cut short can leave expired rows behind, so the count is skipped otherwise
+		backlog.set(deleted == batchSize ? countExpired.applyAsLong(now) : 0);
+		purgedCounter.increment(total);
+		runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		if (total > 0) {
+			log.info("Purged {} expired {} in {} batches", total, subject, batches);
+		}
+		return total;
+	}
+
+	private void runSafely() {
+		try {
+			run();
+		} catch (Exception e) {
+			// Keep the scheduled task alive; the rows are retried on the next run
+			log.error("Purge of expired {} failed: {}", subject, e.getMessage(), e);
+		}
+	}
+
+	private boolean pause() {
+		if (settings.batchPauseMs() <= 0) {
+			return true;
+		}
+		try {
+			Thread.sleep(settings.batchPauseMs());
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -0,0 +1,337 @@
+package com.euem.server.service;
+
+import com.euem.server.config.MailSchedulerProperties;
+import com.euem.server.entity.EmailOutboxMessage;
+import com.euem.server.mail.EmailScheduler;
+import com.euem.server.mail.SmtpRelayRouter;
+import com.euem.server.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers queued mail from the outbox. Each round locks a batch of due rows with
+ * {@code FOR UPDATE SKIP LOCKED}, marks them as sending and commits before any SMTP traffic, so no
+ * database connection is held while the mail server is slow and several instances can dispatch side
+ * by side. {@link EmailScheduler} decides which claimed messages fit their domain's rate limit; the
+ * rest are handed back for later. Batches go out through {@link SmtpRelayRouter} over pooled connections.
+ * Failed messages are retried with exponential backoff until {@code max-attempts}; a message handed back
+ * more than {@code max-deferrals} times is given up on the same way. A message given up on loses its body
+ * at once, since it can carry a one-time code, and the row is purged after {@code failed-retention-hours}.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+	private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+	private static final int MAX_ERROR_LENGTH = 1000;
+
+	@Autowired
+	private EmailOutboxRepository outboxRepository;
+
+	@Autowired
+	private SmtpRelayRouter relayRouter;
+
+	@Autowired
+	private EmailScheduler emailScheduler;
+
+	@Autowired
+	private MailSchedulerProperties mailSchedulerProperties;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${app.mail.outbox.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.mail.outbox.poll-interval-ms:1000}")
+	private long pollIntervalMs;
+
+	@Value("${app.mail.outbox.batch-size:50}")
+	private int batchSize;
+
+	@Value("${app.mail.outbox.max-attempts:8}")
+	private int maxAttempts;
+
+	// Deferrals do not use up attempts, so this is what bounds how often one message is handed back
+	@Value("${app.mail.outbox.max-deferrals:20}")
+	private int maxDeferrals;
+
+	@Value("${app.mail.outbox.initial-backoff-ms:5000}")
+	private long initialBackoffMs;
+
+	@Value("${app.mail.outbox.max-backoff-ms:900000}")
+	private long maxBackoffMs;
+
+	// A row left in SENDING for longer than this belongs to a dispatcher that died and is taken over
+	@Value("${app.mail.outbox.claim-timeout-seconds:300}")
+	private long claimTimeoutSeconds;
+
+	@Value("${app.mail.outbox.retention-hours:24}")
+	private long retentionHours;
+
+	// Failed rows are scrubbed of their content when given up on; this bounds how long the rest is kept
+	@Value("${app.mail.outbox.failed-retention-hours:168}")
+	private long failedRetentionHours;
+
+	private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+	private ScheduledExecutorService executor;
+
+	private TransactionTemplate transactionTemplate;
+
+	private Counter sentCounter;
+
+	private Counter retriedCounter;
+
+	private Counter failedCounter;
+
+	private Counter deferredCounter;
+
+	@PostConstruct
+	void init() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		sentCounter = Counter.builder("euem.mail.outbox.sent").register(meterRegistry);
+		retriedCounter = Counter.builder("euem.mail.outbox.retried").register(meterRegistry);
+		failedCounter = Counter.builder("euem.mail.outbox.failed")
+			.description("Messages given up on after max-attempts or max-deferrals")
+			.register(meterRegistry);
+		deferredCounter = Counter.builder("euem.mail.outbox.deferred")
+			.description("Messages handed back because their recipient domain was over its rate limit")
+			.register(meterRegistry);
+
+		if (!enabled) {
+			log.info("Email outbox dispatcher disabled");
+			return;
+		}
+
+		ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "email-outbox-dispatcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		pool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		executor = pool;
+		executor.scheduleWithFixedDelay(this::dispatchSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+		executor.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.HOURS);
+		long backlogRefreshMs = mailSchedulerProperties.getBacklogRefresh().toMillis();
+		executor.scheduleWithFixedDelay(this::refreshBacklog, 0, backlogRefreshMs, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Asks for a dispatch round as soon as possible; calls made while one is already pending are coalesced.
+	 */
+	public void wakeUp() {
+		if (executor != null && wakeUpPending.compareAndSet(false, true)) {
+			executor.execute(() -> {
+				wakeUpPending.set(false);
+				dispatchSafely();
+			});
+		}
+	}
+
+	/**
+	 * Sends every message that is currently due and returns how many were attempted.
+	 */
+	public int dispatchDue() {
+		int attempted = 0;
+		List<EmailOutboxMessage> batch;
+		do {
+			batch = claimBatch();
+			if (!batch.isEmpty()) {
+				EmailScheduler.Admission admission = emailScheduler.admit(batch, LocalDateTime.now());
+				if (!admission.deferred().isEmpty()) {
+					defer(admission.deferred());
+				}
+				if (!admission.admitted().isEmpty()) {
+					send(admission.admitted());
+					attempted += admission.admitted().size();
+				}
+			}
+		} while (batch.size() == batchSize);
+		return attempted;
+	}
+
+	private void dispatchSafely() {
+		try {
+			relayRouter.evictIdle();
+			dispatchDue();
+		} catch (Exception e) {
+			// Keep the scheduled task alive; the rows stay due and are retried on the next poll
+			log.error("Email outbox dispatch failed: {}", e.getMessage(), e);
+		}
+	}
+
+	private List<EmailOutboxMessage> claimBatch() {
+		return transactionTemplate.execute(status -> {
+			LocalDateTime now = LocalDateTime.now();
+			List<EmailOutboxMessage> due = outboxRepository.lockDueBatch(
+				now, now.minusSeconds(claimTimeoutSeconds), batchSize);
+			for (EmailOutboxMessage message : due) {
+				message.setStatus(EmailOutboxMessage.Status.SENDING);
+				message.setClaimedAt(now);
+				message.setAttempts(message.getAttempts() + 1);
+			}
+			return due;
+		});
+	}
+
+	private void defer(Map<EmailOutboxMessage, LocalDateTime> deferred) {
+		transactionTemplate.executeWithoutResult(status -> {
+			LocalDateTime now = LocalDateTime.now();
+			deferred.forEach((message, dueAt) -> {
+				if (message.getDeferrals() >= maxDeferrals) {
+					log.error("Giving up on email {} to: {} after {} deferrals over its domain's rate limit",
+						message.getId(), message.getRecipient(), message.getDeferrals());
+					outboxRepository.markGivenUp(message.getId(), now,
+						"Deferred " + message.getDeferrals() + " times over the recipient domain's rate limit");
+					failedCounter.increment();
+				} else {
+					outboxRepository.defer(message.getId(), EmailOutboxMessage.Status.PENDING, dueAt);
+					deferredCounter.increment();
+				}
+			});
+		});
+	}
+
+	private void send(List<EmailOutboxMessage> batch) {
+		Map<EmailOutboxMessage, Exception> failures = new IdentityHashMap<>();
+		List<MimeMessage> mails = new ArrayList<>(batch.size());
+		List<EmailOutboxMessage> sending = new ArrayList<>(batch.size());
+		for (EmailOutboxMessage message : batch) {
+			try {
+				mails.add(toMimeMessage(message));
+				sending.add(message);
+			} catch (MessagingException e) {
+				failures.put(message, e);
+			}
+		}
+
+		// The batch goes out over pooled relay connections; a MailSendException lists the messages that did not
+		try {
+			if (!mails.isEmpty()) {
+				relayRouter.send(mails);
+			}
+		} catch (MailSendException e) {
+			Map<Object, Exception> failed = e.getFailedMessages();
+			for (int i = 0; i < mails.size(); i++) {
+				Exception error = failed.isEmpty() ? e : failed.get(mails.get(i));
+				if (error != null) {
+					failures.put(sending.get(i), error);
+				}
+			}
+		} catch (MailException e) {
+			sending.forEach(message -> failures.put(message, e));
+		}
+
+		transactionTemplate.executeWithoutResult(status -> {
+			LocalDateTime now = LocalDateTime.now();
+			for (EmailOutboxMessage message : batch) {
+				Exception error = failures.get(message);
+				if (error == null) {
+					outboxRepository.markSent(message.getId(), now);
+					sentCounter.increment();
+				} else {
+					recordFailure(message, error, now);
+				}
+			}
+		});
+	}
+
+	private MimeMessage toMimeMessage(EmailOutboxMessage message) throws MessagingException {
+		MimeMessage mail = new MimeMessage(relayRouter.getSession());
+		boolean multipart = message.getHtmlBody() != null;
+		MimeMessageHelper helper = new MimeMessageHelper(mail, multipart, StandardCharsets.UTF_8.name());
+		helper.setTo(message.getRecipient());
+		helper.setSubject(message.getSubject());
+		if (multipart) {
+			helper.setText(message.getBody(), message.getHtmlBody());
+		} else {
+			helper.setText(message.getBody());
+		}
+		return mail;
+	}
+
+	private void recordFailure(EmailOutboxMessage message, Exception error, LocalDateTime now) {
+		String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+		if (reason.length() > MAX_ERROR_LENGTH) {
+			reason = reason.substring(0, MAX_ERROR_LENGTH);
+		}
+
+		if (message.getAttempts() >= maxAttempts) {
+			log.error("Giving up on email {} to: {} after {} attempts. Error: {}",
+				message.getId(), message.getRecipient(), message.getAttempts(), reason);
+			outboxRepository.markGivenUp(message.getId(), now, reason);
+			failedCounter.increment();
+			return;
+		}
+
+		LocalDateTime nextAttempt = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis(message.getAttempts())));
+		log.warn("Failed to send email {} to: {} (attempt {}), retrying at {}. Error: {}",
+			message.getId(), message.getRecipient(), message.getAttempts(), nextAttempt, reason);
+		outboxRepository.markFailed(message.getId(), EmailOutboxMessage.Status.PENDING, nextAttempt, reason);
+		retriedCounter.increment();
+	}
+
+	private long backoffMillis(int attempts) {
+		int doublings = Math.min(Math.max(0, attempts - 1), 30);
+		return Math.min(maxBackoffMs, initialBackoffMs << doublings);
+	}
+
+	private void refreshBacklog() {
+		try {
+			emailScheduler.refreshBacklog();
+		} catch (Exception e) {
+			log.warn("Email outbox backlog refresh failed: {}", e.getMessage());
+		}
+	}
+
+	private void purge() {
+		try {
+			LocalDateTime now = LocalDateTime.now();
+			Integer sent = transactionTemplate.execute(status ->
+				outboxRepository.deleteSentBefore(now.minusHours(retentionHours)));
+			Integer failed = transactionTemplate.execute(status ->
+				outboxRepository.deleteFailedBefore(now.minusHours(failedRetentionHours)));
+			if ((sent != null && sent > 0) || (failed != null && failed > 0)) {
+				log.info("Purged {} delivered and {} failed emails from the outbox", sent, failed);
+			}
+		} catch (Exception e) {
+			log.error("Email outbox purge failed: {}", e.getMessage(), e);
+		}
+	}
+}
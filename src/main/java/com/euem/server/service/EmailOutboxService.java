@@ -0,0 +1,66 @@
+package com.euem.server.service;
+
+import com.euem.server.entity.EmailOutboxMessage;
+import com.euem.server.mail.EmailScheduler;
+import com.euem.server.mail.RenderedEmail;
+import com.euem.server.repository.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records outgoing mail in the caller's transaction. Nothing talks to SMTP here; the
+ * {@link EmailOutboxDispatcher} delivers the message once the transaction has committed.
+ */
+@Service
+@Transactional
+public class EmailOutboxService {
+
+	private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+	@Autowired
+	private EmailOutboxRepository outboxRepository;
+
+	@Autowired
+	private EmailOutboxDispatcher dispatcher;
+
+	public EmailOutboxMessage enqueue(String recipient, String subject, String body) {
+		return enqueue(recipient, subject, body, EmailOutboxMessage.Priority.NORMAL);
+	}
+
+	public EmailOutboxMessage enqueue(String recipient, String subject, String body, EmailOutboxMessage.Priority priority) {
+		return enqueue(recipient, new RenderedEmail(subject, body, null), priority);
+	}
+
+	public EmailOutboxMessage enqueue(String recipient, RenderedEmail email, EmailOutboxMessage.Priority priority) {
+		EmailOutboxMessage message = new EmailOutboxMessage();
+		message.setRecipient(recipient);
+		message.setRecipientDomain(EmailScheduler.domainOf(recipient));
+		message.setPriority(priority);
+		message.setSubject(email.subject());
+		message.setBody(email.text());
+		message.setHtmlBody(email.html());
+		message.setNextAttemptAt(LocalDateTime.now());
+		EmailOutboxMessage saved = outboxRepository.save(message);
+		log.debug("Queued {} email {} to: {}", priority, saved.getId(), recipient);
+
+		// Rows are invisible to the dispatcher until commit, so nudge it then instead of waiting for the next poll
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					dispatcher.wakeUp();
+				}
+			});
+		} else {
+			dispatcher.wakeUp();
+		}
+		return saved;
+	}
+}
@@ -2,17 +2,20 @@ package com.euem.server.service;
 
 import com.euem.server.entity.User;
 import com.euem.server.entity.VerificationToken;
-import com.euem.server.repository.VerificationTokenRepository;
+import com.euem.server.mail.EmailScheduler;
+import com.euem.server.mail.EmailTemplateRegistry;
+import com.euem.server.mail.RenderedEmail;
+import com.euem.server.util.OtpGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class EmailService {
@@ -20,10 +23,16 @@ public class EmailService {
 	private static final Logger log = LoggerFactory.getLogger(EmailService.class);
     
     @Autowired
-    private JavaMailSender mailSender;
+    private EmailOutboxService emailOutboxService;
     
     @Autowired
-    private VerificationTokenRepository verificationTokenRepository;
+    private EmailScheduler emailScheduler;
+    
+    @Autowired
+    private EmailTemplateRegistry templateRegistry;
+    
+    @Autowired
+    private VerificationTokenStore verificationTokenStore;
     
     @Value("${app.otp.expiry-minutes}")
     private int otpExpiryMinutes;
@@ -31,133 +40,79 @@ public class EmailService {
     @Value("${app.otp.length}")
     private int otpLength;
     
+    @Value("${app.otp.resend-cooldown-seconds:60}")
+    private long resendCooldownSeconds;
+    
+    // A code with less validity left than this is replaced rather than re-sent
+    @Value("${app.otp.resend-min-remaining-seconds:120}")
+    private long resendMinRemainingSeconds;
+    
 	public void sendVerificationEmail(User user, VerificationToken.TokenType tokenType) {
-		log.info("Starting to send verification email to: {}, type: {}", user.getEmail(), tokenType);
+		log.info("Preparing verification email for: {}, type: {}", user.getEmail(), tokenType);
 		
 		String otpCode = generateOtpCode();
 		LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(otpExpiryMinutes);
 		
-		// Delete any existing tokens for this user and type
-		log.debug("Deleting existing tokens for user: {}, type: {}", user.getId(), tokenType.name());
-		verificationTokenRepository.deleteByUserAndType(user.getId(), tokenType.name());
-		
-		// Create new verification token
-		VerificationToken token = new VerificationToken();
-		token.setUser(user);
-		token.setOtpCode(otpCode);
-		token.setExpiryTime(expiryTime);
-		token.setType(tokenType);
-		verificationTokenRepository.save(token);
+		// Replaces any existing token for this user and type
+		verificationTokenStore.issue(user, tokenType, otpCode, expiryTime);
 		log.debug("Saved verification token for user: {}", user.getId());
 		
-		// Send email
-		SimpleMailMessage message = new SimpleMailMessage();
-		message.setTo(user.getEmail());
-		message.setSubject(getEmailSubject(tokenType));
-		message.setText(getEmailBody(otpCode, tokenType));
+		queueVerificationEmail(user, otpCode, tokenType);
+	}
+	
+	/**
+	 * Re-mails a still-valid code instead of replacing it. Within the cooldown since the last mail
+	 * nothing is sent; only when no code is left, or it is about to expire, a new one is issued.
+	 */
+	public void resendVerificationEmail(User user, VerificationToken.TokenType tokenType) {
+		LocalDateTime now = LocalDateTime.now();
+		Optional<VerificationToken> existing = verificationTokenStore.findActive(
+			user, tokenType, now.plusSeconds(resendMinRemainingSeconds));
+		
+		if (existing.isEmpty()) {
+			sendVerificationEmail(user, tokenType);
+			return;
+		}
 		
-		log.info("Attempting to send email to: {} with subject: {}", user.getEmail(), message.getSubject());
-		try {
-			mailSender.send(message);
-			log.info("Email sent successfully to: {}", user.getEmail());
-		} catch (Exception e) {
-			log.error("Failed to send email to: {}. Error: {}", user.getEmail(), e.getMessage(), e);
-			throw e;
+		VerificationToken token = existing.get();
+		if (!verificationTokenStore.markResent(token, now, now.minusSeconds(resendCooldownSeconds))) {
+			log.info("Resend for user id {} within cooldown, not sending another email", user.getId());
+			return;
 		}
+		
+		queueVerificationEmail(user, token.getOtpCode(), tokenType);
+		log.info("Re-sent existing {} code to user id {}", tokenType, user.getId());
+	}
+	
+	private void queueVerificationEmail(User user, String otpCode, VerificationToken.TokenType tokenType) {
+		// Queued in the caller's transaction and delivered after commit
+		RenderedEmail email = templateRegistry.render(tokenType, LocaleContextHolder.getLocale(), Map.of(
+			"code", otpCode,
+			"expiryMinutes", String.valueOf(otpExpiryMinutes)));
+		emailOutboxService.enqueue(user.getEmail(), email, emailScheduler.priorityOf(tokenType));
+		log.info("Verification email queued for: {}", user.getEmail());
 	}
     
 	public void sendEmailChangeVerification(User user, String newEmail, VerificationToken.TokenType tokenType) {
-		log.info("Starting to send email change verification to: {} (old: {})", newEmail, user.getEmail());
+		log.info("Preparing email change verification for: {} (old: {})", newEmail, user.getEmail());
 		
 		String otpCode = generateOtpCode();
 		LocalDateTime expiryTime = LocalDateTime.now().plusMinutes(otpExpiryMinutes);
 		
-		// Delete any existing tokens for this user and type
-		log.debug("Deleting existing tokens for user: {}, type: {}", user.getId(), tokenType.name());
-		verificationTokenRepository.deleteByUserAndType(user.getId(), tokenType.name());
-		
-		// Create new verification token
-		VerificationToken token = new VerificationToken();
-		token.setUser(user);
-		token.setOtpCode(otpCode);
-		token.setExpiryTime(expiryTime);
-		token.setType(tokenType);
-		verificationTokenRepository.save(token);
+		// Replaces any existing token for this user and type
+		verificationTokenStore.issue(user, tokenType, otpCode, expiryTime);
 		log.debug("Saved verification token for user: {}", user.getId());
 		
-		// Send email to new address
-		SimpleMailMessage message = new SimpleMailMessage();
-		message.setTo(newEmail);
-		message.setSubject("Verify Your New Email Address");
-		message.setText(getEmailChangeBody(otpCode, user.getEmail()));
-		
-		log.info("Attempting to send email change verification to: {}", newEmail);
-		try {
-			mailSender.send(message);
-			log.info("Email change verification sent successfully to: {}", newEmail);
-		} catch (Exception e) {
-			log.error("Failed to send email change verification to: {}. Error: {}", newEmail, e.getMessage(), e);
-			throw e;
-		}
+		// Queued in the caller's transaction and delivered after commit
+		RenderedEmail email = templateRegistry.render(tokenType, LocaleContextHolder.getLocale(), Map.of(
+			"code", otpCode,
+			"expiryMinutes", String.valueOf(otpExpiryMinutes),
+			"oldEmail", user.getEmail()));
+		emailOutboxService.enqueue(newEmail, email, emailScheduler.priorityOf(tokenType));
+		log.info("Email change verification queued for: {}", newEmail);
 	}
     
     private String generateOtpCode() {
-        Random random = new Random();
-        StringBuilder otp = new StringBuilder();
-        for (int i = 0; i < otpLength; i++) {
-            otp.append(random.nextInt(10));
-        }
-        return otp.toString();
-    }
-    
-    private String getEmailSubject(VerificationToken.TokenType tokenType) {
-        switch (tokenType) {
-            case EMAIL_VERIFICATION:
-                return "Verify Your Email Address";
-            case PASSWORD_RESET:
-                return "Reset Your Password";
-            case EMAIL_CHANGE:
-                return "Verify Your New Email Address";
-            default:
-                return "Verification Code";
-        }
-    }
-    
-    private String getEmailBody(String otpCode, VerificationToken.TokenType tokenType) {
-        switch (tokenType) {
-            case EMAIL_VERIFICATION:
-                return String.format(
-                    "Welcome! Please use the following code to verify your email address:\n\n" +
-                    "Verification Code: %s\n\n" +
-                    "This code will expire in %d minutes.\n\n" +
-                    "If you didn't create an account, please ignore this email.",
-                    otpCode, otpExpiryMinutes
-                );
-            case PASSWORD_RESET:
-                return String.format(
-                    "You requested to reset your password. Please use the following code:\n\n" +
-                    "Reset Code: %s\n\n" +
-                    "This code will expire in %d minutes.\n\n" +
-                    "If you didn't request this, please ignore this email.",
-                    otpCode, otpExpiryMinutes
-                );
-            default:
-                return String.format(
-                    "Your verification code is: %s\n\n" +
-                    "This code will expire in %d minutes.",
-                    otpCode, otpExpiryMinutes
-                );
-        }
-    }
-    
-    private String getEmailChangeBody(String otpCode, String oldEmail) {
-        return String.format(
-            "You requested to change your email address from %s.\n\n" +
-            "Please use the following code to verify your new email address:\n\n" +
-            "Verification Code: %s\n\n" +
-            "This code will expire in %d minutes.\n\n" +
-            "If you didn't request this change, please ignore this email.",
-            oldEmail, otpCode, otpExpiryMinutes
-        );
+        return OtpGenerator.generate(otpLength);
     }
 }
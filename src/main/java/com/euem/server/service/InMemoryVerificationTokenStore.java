@@ -0,0 +1,288 @@
+package com.euem.server.service;
+
+import com.euem.server.entity.User;
+import com.euem.server.entity.VerificationToken;
+import com.euem.server.exception.ServiceOverloadedException;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.util.HashedTimingWheel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps OTP codes in this process for single-node deployments. Lookups go through hash maps keyed by
+ * (user, type) and (email, type); expiry is driven by a {@link HashedTimingWheel}, so dropping an
+ * expired code costs O(1) and nothing scans the table. The number of live codes is capped by
+ * {@code max-entries}. Changes made inside a transaction are applied once it commits, like rows in
+ * {@code verification_tokens}; a resend claim is taken straight away, as the row lock does for the JPA
+ * store, and given back on rollback. Codes do not survive a restart.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory")
+public class InMemoryVerificationTokenStore implements VerificationTokenStore, MeterBinder {
+
+	private static final Logger log = LoggerFactory.getLogger(InMemoryVerificationTokenStore.class);
+
+	private final Map<Key, Entry> byUser = new ConcurrentHashMap<>();
+
+	private final Map<EmailKey, Entry> byEmail = new ConcurrentHashMap<>();
+
+	private final LongAdder expired = new LongAdder();
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Value("${app.otp.memory-store.max-entries:100000}")
+	private int maxEntries;
+
+	@Value("${app.otp.memory-store.tick-ms:1000}")
+	private long tickMs;
+
+	// Ticks per revolution; deadlines further out than one revolution are still correct but share slots
+	@Value("${app.otp.memory-store.wheel-slots:1024}")
+	private int wheelSlots;
+
+	private HashedTimingWheel<Entry> wheel;
+
+	private ScheduledExecutorService executor;
+
+	@PostConstruct
+	void init() {
+		wheel = new HashedTimingWheel<>(Duration.ofMillis(tickMs), wheelSlots, System.currentTimeMillis());
+
+		ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "otp-token-expiry");
+			thread.setDaemon(true);
+			return thread;
+		});
+		pool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		executor = pool;
+		executor.scheduleWithFixedDelay(this::expireSafely, tickMs, tickMs, TimeUnit.MILLISECONDS);
+		log.info("Verification tokens kept in memory (max {} entries)", maxEntries);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	@Override
+	public synchronized VerificationToken issue(
+			User user, VerificationToken.TokenType type, String otpCode, LocalDateTime expiryTime) {
+		Key key = new Key(user.getId(), type);
+		if (!byUser.containsKey(key) && byUser.size() >= maxEntries) {
+			wheel.advance(System.currentTimeMillis(), this::expire);
+			if (byUser.size() >= maxEntries) {
+				log.warn("In-memory verification token store full ({} entries)", byUser.size());
+				throw new ServiceOverloadedException("Verification service is busy, try again later", tickMs / 1000 + 1);
+			}
+		}
+
+		Entry entry = new Entry(UUID.randomUUID(), key, new EmailKey(user.getEmail(), type), otpCode, expiryTime);
+		entry.lastSentAt = LocalDateTime.now();
+		applyOnCommit(() -> {
+			Entry previous = byUser.get(key);
+			if (previous != null) {
+				remove(previous);
+			}
+			entry.timeout = wheel.schedule(entry, toEpochMillis(expiryTime));
+			byUser.put(entry.key, entry);
+			byEmail.put(entry.emailKey, entry);
+		});
+		return toToken(entry, user);
+	}
+
+	@Override
+	public Optional<VerificationToken> findActive(User user, VerificationToken.TokenType type, LocalDateTime validAt) {
+		Entry entry = byUser.get(new Key(user.getId(), type));
+		if (entry == null || !entry.expiryTime.isAfter(validAt)) {
+			return Optional.empty();
+		}
+		return Optional.of(toToken(entry, user));
+	}
+
+	@Override
+	public Optional<VerificationToken> findActiveByEmail(String email, VerificationToken.TokenType type, LocalDateTime now) {
+		Entry entry = byEmail.get(new EmailKey(email, type));
+		if (entry == null || !entry.expiryTime.isAfter(now)) {
+			return Optional.empty();
+		}
+		// Loaded lazily in the caller's transaction when the user's state is needed
+		return Optional.of(toToken(entry, userRepository.getReferenceById(entry.key.userId())));
+	}
+
+	@Override
+	public synchronized boolean markResent(VerificationToken token, LocalDateTime now, LocalDateTime cooldownStart) {
+		Entry entry = byUser.get(new Key(token.getUser().getId(), token.getType()));
+		if (entry == null || !entry.id.equals(token.getId())
+				|| (entry.lastSentAt != null && entry.lastSentAt.isAfter(cooldownStart))) {
+			return false;
+		}
+		LocalDateTime previous = entry.lastSentAt;
+		entry.lastSentAt = now;
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						releaseResend(entry, now, previous);
+					}
+				}
+			});
+		}
+		return true;
+	}
+
+	@Override
+	public void consume(VerificationToken token) {
+		Key key = new Key(token.getUser().getId(), token.getType());
+		UUID tokenId = token.getId();
+		applyOnCommit(() -> {
+			Entry entry = byUser.get(key);
+			if (entry != null && entry.id.equals(tokenId)) {
+				remove(entry);
+			}
+		});
+	}
+
+	@Override
+	public void deleteAllForUser(UUID userId) {
+		applyOnCommit(() -> {
+			for (VerificationToken.TokenType type : VerificationToken.TokenType.values()) {
+				Entry entry = byUser.get(new Key(userId, type));
+				if (entry != null) {
+					remove(entry);
+				}
+			}
+		});
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("euem.otp.store.entries", byUser, Map::size)
+			.description("Live verification codes held in memory")
+			.register(registry);
+		FunctionCounter.builder("euem.otp.store.expired", expired, LongAdder::sum)
+			.description("Verification codes dropped by the timing wheel after expiring")
+			.register(registry);
+	}
+
+	// A rolled back transaction must not leave a code behind or remove one that is still valid
+	private void applyOnCommit(Runnable change) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					apply(change);
+				}
+			});
+		} else {
+			apply(change);
+		}
+	}
+
+	private synchronized void apply(Runnable change) {
+		change.run();
+	}
+
+	private synchronized void releaseResend(Entry entry, LocalDateTime claimedAt, LocalDateTime previous) {
+		if (claimedAt.equals(entry.lastSentAt)) {
+			entry.lastSentAt = previous;
+		}
+	}
+
+	private synchronized void expireSafely() {
+		try {
+			wheel.advance(System.currentTimeMillis(), this::expire);
+		} catch (Exception e) {
+			log.error("Verification token expiry failed: {}", e.getMessage(), e);
+		}
+	}
+
+	private void expire(Entry entry) {
+		entry.timeout = null;
+		remove(entry);
+		expired.increment();
+	}
+
+	private void remove(Entry entry) {
+		if (entry.timeout != null) {
+			wheel.cancel(entry.timeout);
+			entry.timeout = null;
+		}
+		byUser.remove(entry.key, entry);
+		byEmail.remove(entry.emailKey, entry);
+	}
+
+	private static VerificationToken toToken(Entry entry, User user) {
+		VerificationToken token = new VerificationToken();
+		token.setId(entry.id);
+		token.setUser(user);
+		token.setOtpCode(entry.otpCode);
+		token.setExpiryTime(entry.expiryTime);
+		token.setLastSentAt(entry.lastSentAt);
+		token.setType(entry.key.type());
+		return token;
+	}
+
+	private static long toEpochMillis(LocalDateTime time) {
+		return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private record Key(UUID userId, VerificationToken.TokenType type) {
+	}
+
+	private record EmailKey(String email, VerificationToken.TokenType type) {
+	}
+
+	private static final class Entry {
+
+		private final UUID id;
+
+		private final Key key;
+
+		private final EmailKey emailKey;
+
+		private final String otpCode;
+
+		private final LocalDateTime expiryTime;
+
+		// Guarded by the store's monitor
+		private LocalDateTime lastSentAt;
+
+		private HashedTimingWheel.Timeout<Entry> timeout;
+
+		private Entry(UUID id, Key key, EmailKey emailKey, String otpCode, LocalDateTime expiryTime) {
+			this.id = id;
+			this.key = key;
+			this.emailKey = emailKey;
+			this.otpCode = otpCode;
+			this.expiryTime = expiryTime;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.euem.server.service;
+
+import com.euem.server.entity.User;
+import com.euem.server.entity.VerificationToken;
+import com.euem.server.repository.VerificationTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaVerificationTokenStore implements VerificationTokenStore {
+
+	@Autowired
+	private VerificationTokenRepository verificationTokenRepository;
+
+	@Override
+	public VerificationToken issue(User user, VerificationToken.TokenType type, String otpCode, LocalDateTime expiryTime) {
+		// Without the lock two concurrent issues could each delete, then both insert
+		verificationTokenRepository.lockUserAndType(user.getId(), type.ordinal());
+		verificationTokenRepository.deleteByUserAndType(user.getId(), type.name());
+
+		VerificationToken token = new VerificationToken();
+		token.setUser(user);
+		token.setOtpCode(otpCode);
+		token.setExpiryTime(expiryTime);
+		token.setType(type);
+		token.setLastSentAt(LocalDateTime.now());
+		return verificationTokenRepository.save(token);
+	}
+
+	@Override
+	public Optional<VerificationToken> findActive(User user, VerificationToken.TokenType type, LocalDateTime validAt) {
+		return verificationTokenRepository.findByUserAndTypeAndExpiryTimeAfterOrderByExpiryTimeDesc(user, type, validAt)
+			.stream().findFirst();
+	}
+
+	@Override
+	public Optional<VerificationToken> findActiveByEmail(String email, VerificationToken.TokenType type, LocalDateTime now) {
+		return verificationTokenRepository.findActiveByUserEmailAndType(email, type, now).stream().findFirst();
+	}
+
+	@Override
+	public boolean markResent(VerificationToken token, LocalDateTime now, LocalDateTime cooldownStart) {
+		return verificationTokenRepository.markResent(token.getId(), now, cooldownStart) == 1;
+	}
+
+	@Override
+	public void consume(VerificationToken token) {
+		verificationTokenRepository.delete(token);
+	}
+
+	@Override
+	public void deleteAllForUser(UUID userId) {
+		verificationTokenRepository.deleteAllByUserId(userId);
+	}
+}
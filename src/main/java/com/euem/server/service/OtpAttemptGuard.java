@@ -0,0 +1,200 @@
+package com.euem.server.service;
+
+import com.euem.server.exception.TooManyAttemptsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Failed OTP attempts per account and per client IP. Each key holds one packed long (last failure time and
+ * failure count); counts decay with time and lockouts lapse on their own, so nothing sweeps the map
+ * in the background. When the map is full, keys that are not locked out are shed first, lowest count first,
+ * and only then the oldest lockouts, the ones closest to lapsing. New keys are always tracked, so a flood of
+ * locked-out junk accounts cannot shut verification for everyone else.
+ */
+@Component
+public class OtpAttemptGuard {
+
+	private static final Logger log = LoggerFactory.getLogger(OtpAttemptGuard.class);
+
+	private static final int COUNT_BITS = 16;
+	private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+	private final Map<String, AtomicLong> attempts = new ConcurrentHashMap<>();
+
+	// One thread makes room at a time; the others insert meanwhile and overshoot max-keys briefly
+	private final AtomicBoolean makingRoom = new AtomicBoolean();
+
+	@Value("${app.otp.guard.max-failures-per-user:5}")
+	private int maxFailuresPerUser;
+
+	@Value("${app.otp.guard.max-failures-per-ip:20}")
+	private int maxFailuresPerIp;
+
+	@Value("${app.otp.guard.lockout-seconds:900}")
+	private long lockoutSeconds;
+
+	// One recorded failure is forgotten per interval while the key is not locked out
+	@Value("${app.otp.guard.decay-seconds:60}")
+	private long decaySeconds;
+
+	@Value("${app.otp.guard.max-keys:100000}")
+	private int maxKeys;
+
+	/**
+	 * @param account the verification target (normalised email or user id); failures against it count
+	 *                even when it does not exist, so probing unknown addresses is throttled the same way
+	 */
+	public void checkAllowed(String account, String clientIp) {
+		long now = nowSeconds();
+		String accountKey = accountKey(account);
+		String ipKey = ipKey(clientIp);
+		check(accountKey, maxFailuresPerUser, now);
+		check(ipKey, maxFailuresPerIp, now);
+	}
+
+	public void recordFailure(String account, String clientIp) {
+		long now = nowSeconds();
+		recordFailure(accountKey(account), maxFailuresPerUser, now);
+		recordFailure(ipKey(clientIp), maxFailuresPerIp, now);
+	}
+
+	public void recordSuccess(String account) {
+		String key = accountKey(account);
+		if (key != null) {
+			attempts.remove(key);
+		}
+	}
+
+	private void check(String key, int maxFailures, long now) {
+		if (key == null) {
+			return;
+		}
+		AtomicLong state = attempts.get(key);
+		if (state == null) {
+			return;
+		}
+
+		long current = state.get();
+		long lastFailure = current >>> COUNT_BITS;
+		if ((current & COUNT_MASK) >= maxFailures && now - lastFailure < lockoutSeconds) {
+			throw new TooManyAttemptsException(
+				"Too many invalid verification attempts, try again later", lastFailure + lockoutSeconds - now);
+		}
+		if (decayedCount(current, maxFailures, now) == 0) {
+			attempts.remove(key, state);
+		}
+	}
+
+	private void recordFailure(String key, int maxFailures, long now) {
+		if (key == null) {
+			return;
+		}
+		AtomicLong state = attempts.get(key);
+		if (state == null) {
+			if (attempts.size() >= maxKeys) {
+				makeRoom(now);
+			}
+			state = attempts.computeIfAbsent(key, k -> new AtomicLong());
+		}
+
+		long count;
+		long current;
+		do {
+			current = state.get();
+			count = Math.min(decayedCount(current, maxFailures, now) + 1, COUNT_MASK);
+		} while (!state.compareAndSet(current, (now << COUNT_BITS) | count));
+
+		if (count == maxFailures) {
+			log.warn("OTP verification locked for {} after {} failed attempts", key, count);
+		}
+	}
+
+	private long decayedCount(long state, int maxFailures, long now) {
+		long count = state & COUNT_MASK;
+		long elapsed = now - (state >>> COUNT_BITS);
+		if (count >= maxFailures) {
+			return elapsed >= lockoutSeconds ? 0 : count;
+		}
+		return Math.max(0, count - elapsed / Math.max(1, decaySeconds));
+	}
+
+	// Only runs when the map is full: drop keys whose failures have fully decayed, then shed keys down to seven
+	// eighths of max-keys, unlocked keys lowest count first and lockouts oldest first
+	private void makeRoom(long now) {
+		if (!makingRoom.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			List<Map.Entry<String, Long>> unlocked = new ArrayList<>();
+			List<Map.Entry<String, Long>> locked = new ArrayList<>();
+			for (Map.Entry<String, AtomicLong> entry : attempts.entrySet()) {
+				int maxFailures = maxFailures(entry.getKey());
+				long current = entry.getValue().get();
+				long count = decayedCount(current, maxFailures, now);
+				if (count == 0) {
+					attempts.remove(entry.getKey(), entry.getValue());
+				} else if (count >= maxFailures) {
+					locked.add(Map.entry(entry.getKey(), current >>> COUNT_BITS));
+				} else {
+					unlocked.add(Map.entry(entry.getKey(), count));
+				}
+			}
+
+			int target = maxKeys - Math.max(1, maxKeys / 8);
+			unlocked.sort(Map.Entry.comparingByValue());
+			for (Map.Entry<String, Long> candidate : unlocked) {
+				if (attempts.size() <= target) {
+					break;
+				}
+				// Skip a key that reached lockout since the scan
+				int maxFailures = maxFailures(candidate.getKey());
+				AtomicLong state = attempts.get(candidate.getKey());
+				if (state != null && decayedCount(state.get(), maxFailures, now) < maxFailures) {
+					attempts.remove(candidate.getKey(), state);
+				}
+			}
+
+			int evictedLockouts = 0;
+			locked.sort(Map.Entry.comparingByValue());
+			for (Map.Entry<String, Long> candidate : locked) {
+				if (attempts.size() <= target) {
+					break;
+				}
+				AtomicLong state = attempts.get(candidate.getKey());
+				if (state != null && attempts.remove(candidate.getKey(), state)) {
+					evictedLockouts++;
+				}
+			}
+			if (evictedLockouts > 0) {
+				log.warn("OTP attempt guard full of locked keys, dropped the {} oldest lockouts", evictedLockouts);
+			}
+		} finally {
+			makingRoom.set(false);
+		}
+	}
+
+	private int maxFailures(String key) {
+		return key.startsWith("ip:") ? maxFailuresPerIp : maxFailuresPerUser;
+	}
+
+	private static String accountKey(String account) {
+		return account != null ? "account:" + account : null;
+	}
+
+	private static String ipKey(String clientIp) {
+		return clientIp != null ? "ip:" + clientIp : null;
+	}
+
+	private static long nowSeconds() {
+		return System.currentTimeMillis() / 1000;
+	}
+}
@@ -0,0 +1,75 @@
+package com.euem.server.service;
+
+import com.euem.server.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Deletes expired rows from {@code refresh_tokens} in chunks, the same way {@link VerificationTokenPurger}
+ * does for codes. Rotated tokens count as expired once their reuse-detection window has passed, since
+ * rotation cuts their expiry down to it.
+ */
+@Component
+public class RefreshTokenPurger {
+
+	private static final Logger log = LoggerFactory.getLogger(RefreshTokenPurger.class);
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${app.jwt.refresh-purge.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.jwt.refresh-purge.interval-ms:3600000}")
+	private long intervalMs;
+
+	@Value("${app.jwt.refresh-purge.batch-size:1000}")
+	private int batchSize;
+
+	@Value("${app.jwt.refresh-purge.max-batches-per-run:100}")
+	private int maxBatchesPerRun;
+
+	@Value("${app.jwt.refresh-purge.batch-pause-ms:50}")
+	private long batchPauseMs;
+
+	private BatchedPurge purge;
+
+	@PostConstruct
+	void init() {
+		purge = new BatchedPurge("euem.refresh.purge", "refresh tokens",
+			new BatchedPurge.Settings(batchSize, maxBatchesPerRun, batchPauseMs),
+			refreshTokenRepository::deleteExpiredBatch, refreshTokenRepository::countByExpiryTimeBefore,
+			transactionManager, meterRegistry);
+
+		if (!enabled) {
+			log.info("Refresh token purge disabled");
+			return;
+		}
+		purge.start("refresh-token-purge", intervalMs);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		purge.shutdown();
+	}
+
+	/**
+	 * Deletes expired tokens batch by batch and returns how many were removed.
+	 */
+	public int purgeExpired() {
+		return purge.run();
+	}
+}
@@ -0,0 +1,118 @@
+package com.euem.server.service;
+
+import com.euem.server.entity.RefreshToken;
+import com.euem.server.entity.User;
+import com.euem.server.exception.InvalidRefreshTokenException;
+import com.euem.server.repository.RefreshTokenRepository;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.repository.UserSecurityState;
+import com.euem.server.util.TokenHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+@Service
+@Transactional
+public class RefreshTokenService {
+
+	private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+	private static final int TOKEN_BYTES = 32;
+
+	private final SecureRandom secureRandom = new SecureRandom();
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Value("${app.jwt.refresh-expiration:2592000000}")
+	private long refreshExpirationInMs;
+
+	// How long a rotated token is kept to detect reuse before RefreshTokenPurger deletes it
+	@Value("${app.jwt.refresh-reuse-window-ms:604800000}")
+	private long reuseWindowMs;
+
+	public String issue(UUID userId) {
+		// Only the foreign key is written; no need to load the user
+		return issue(userRepository.getReferenceById(userId), UUID.randomUUID());
+	}
+
+	/**
+	 * Exchanges a refresh token for a new one from the same family. Presenting a token that was
+	 * already rotated is treated as theft and revokes the whole family; after {@code refresh-reuse-window-ms}
+	 * the rotated token is purged and only reported as expired.
+	 */
+	@Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+	public Rotation rotate(String rawToken) {
+		RefreshToken current = refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex(rawToken))
+			.orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+
+		if (current.getExpiryTime().isBefore(LocalDateTime.now())) {
+			refreshTokenRepository.delete(current);
+			throw new InvalidRefreshTokenException("Refresh token expired");
+		}
+
+		LocalDateTime keepUntil = LocalDateTime.now().plus(Duration.ofMillis(reuseWindowMs));
+		if (refreshTokenRepository.revokeIfActive(current.getId(), keepUntil) == 0) {
+			log.warn("Refresh token reuse detected for user id {}, revoking token family {}",
+				current.getUser().getId(), current.getFamilyId());
+			refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+			throw new InvalidRefreshTokenException("Refresh token has already been used");
+		}
+
+		// Checked against the committed row; the associated entity may be a node-local cached copy
+		UUID userId = current.getUser().getId();
+		boolean enabled = userRepository.findSecurityStateById(userId)
+			.map(UserSecurityState::enabled)
+			.orElse(false);
+		if (!enabled) {
+			refreshTokenRepository.deleteByUserId(userId);
+			throw new InvalidRefreshTokenException("Account is disabled");
+		}
+
+		// Read past the second-level cache so the new access token carries the current security version
+		User user = userRepository.findCommittedById(userId)
+			.orElseThrow(() -> new InvalidRefreshTokenException("Account is disabled"));
+
+		return new Rotation(user, issue(user, current.getFamilyId()));
+	}
+
+	public void revokeAll(UUID userId) {
+		int revoked = refreshTokenRepository.deleteByUserId(userId);
+		log.debug("Revoked {} refresh tokens for user id {}", revoked, userId);
+	}
+
+	public long getRefreshExpirationInMs() {
+		return refreshExpirationInMs;
+	}
+
+	private String issue(User user, UUID familyId) {
+		byte[] bytes = new byte[TOKEN_BYTES];
+		secureRandom.nextBytes(bytes);
+		String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+		RefreshToken token = new RefreshToken();
+		token.setUser(user);
+		token.setTokenHash(TokenHasher.sha256Hex(rawToken));
+		token.setFamilyId(familyId);
+		token.setExpiryTime(LocalDateTime.now().plus(Duration.ofMillis(refreshExpirationInMs)));
+		token.setRevoked(false);
+		refreshTokenRepository.save(token);
+
+		return rawToken;
+	}
+
+	public record Rotation(User user, String refreshToken) {
+	}
+}
@@ -0,0 +1,77 @@
+package com.euem.server.service;
+
+import com.euem.server.entity.Role;
+import com.euem.server.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The rows of {@code roles}, seeded and loaded once at startup and on {@link #reload()}. The cached
+ * entities only serve as references for {@code user_roles} rows and are never modified, so handing the
+ * same instances to every transaction is safe and registration needs no role lookup.
+ */
+@Component
+public class RoleRegistry {
+
+	private static final Logger log = LoggerFactory.getLogger(RoleRegistry.class);
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	private volatile Map<Role.RoleName, Role> roles = Map.of();
+
+	@PostConstruct
+	void init() {
+		reload();
+	}
+
+	public Role get(Role.RoleName name) {
+		Role role = roles.get(name);
+		if (role == null) {
+			throw new IllegalStateException(name + " role not found");
+		}
+		return role;
+	}
+
+	/**
+	 * Creates any missing role, reads all of them and swaps the registry in one step.
+	 *
+	 * @return the number of roles loaded
+	 */
+	public synchronized int reload() {
+		Map<Role.RoleName, Role> loaded = new EnumMap<>(Role.RoleName.class);
+		roleRepository.findAll().forEach(role -> loaded.put(role.getName(), role));
+
+		for (Role.RoleName name : Role.RoleName.values()) {
+			if (!loaded.containsKey(name)) {
+				loaded.put(name, seed(name));
+			}
+		}
+
+		roles = Collections.unmodifiableMap(loaded);
+		log.info("Loaded {} roles", loaded.size());
+		return loaded.size();
+	}
+
+	private Role seed(Role.RoleName name) {
+		Role role = new Role();
+		role.setName(name);
+		try {
+			Role saved = roleRepository.save(role);
+			log.info("Created missing {} role", name);
+			return saved;
+		} catch (DataIntegrityViolationException e) {
+			// Another instance seeded it first
+			return roleRepository.findByName(name)
+				.orElseThrow(() -> new IllegalStateException(name + " role not found", e));
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.euem.server.service;
+
+import com.euem.server.dto.response.UserResponse;
+import com.euem.server.entity.Role;
+import com.euem.server.exception.UserNotFoundException;
+import com.euem.server.repository.UserProfileView;
+import com.euem.server.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Profile reads. Read-only transactions over a constructor projection, so no {@code User} entity is
+ * loaded into the persistence context, snapshotted or flushed; writes stay in {@link UserService}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class UserQueryService {
+	
+	private static final Logger log = LoggerFactory.getLogger(UserQueryService.class);
+	
+	@Autowired
+	private UserRepository userRepository;
+	
+	public UserResponse getUserProfile(UUID userId) {
+		UserProfileView profile = userRepository.findProfileById(userId)
+			.orElseThrow(() -> {
+				log.warn("Get user profile failed because user not found: {}", userId);
+				return new UserNotFoundException("User not found");
+			});
+		
+		return toUserResponse(profile);
+	}
+	
+	private UserResponse toUserResponse(UserProfileView profile) {
+		// Role names come from role_mask, already part of the row; no user_roles join
+		Set<String> roleNames = Role.RoleName.namesOf(profile.roleMask() != null ? profile.roleMask() : 0);
+		
+		return new UserResponse(
+			profile.id(),
+			profile.email(),
+			profile.firstName(),
+			profile.lastName(),
+			profile.isVerified(),
+			profile.isEnabled(),
+			profile.createdAt(),
+			profile.updatedAt(),
+			roleNames
+		);
+	}
+}
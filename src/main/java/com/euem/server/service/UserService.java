@@ -9,22 +9,23 @@ import com.euem.server.entity.Role;
 import com.euem.server.entity.User;
 import com.euem.server.entity.VerificationToken;
 import com.euem.server.exception.*;
-import com.euem.server.repository.RoleRepository;
 import com.euem.server.repository.UserRepository;
-import com.euem.server.repository.VerificationTokenRepository;
+import com.euem.server.security.PrincipalCache;
+import com.euem.server.security.SecurityVersionRegistry;
+import com.euem.server.util.OtpGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Locale;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -36,10 +37,10 @@ public class UserService {
     private UserRepository userRepository;
     
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
     
     @Autowired
-    private VerificationTokenRepository verificationTokenRepository;
+    private VerificationTokenStore verificationTokenStore;
     
     @Autowired
     private EmailService emailService;
@@ -47,6 +48,18 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private SecurityVersionRegistry securityVersionRegistry;
+    
+    @Autowired
+    private PrincipalCache principalCache;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private OtpAttemptGuard otpAttemptGuard;
+    
     public UserResponse register(RegisterRequest request) {
 		log.info("Attempting to register user with email: {}", request.getEmail());
 		
@@ -65,7 +78,11 @@ public class UserService {
 			existingUser.setLastName(request.getLastName());
 			existingUser.setIsVerified(false);
 			existingUser.setIsEnabled(true);
-			ensureUserRole(existingUser, request.getEmail());
+			// The mask already carries USER for any account registered here; only a missing bit is worth loading user_roles for
+			if (!existingUser.getRoleNames().contains(Role.RoleName.USER)) {
+				ensureUserRole(existingUser);
+			}
+			bumpSecurityVersion(existingUser);
 			targetUser = existingUser;
 		} else {
 			User newUser = new User();
@@ -75,10 +92,11 @@ public class UserService {
 			newUser.setLastName(request.getLastName());
 			newUser.setIsVerified(false);
 			newUser.setIsEnabled(true);
-			ensureUserRole(newUser, request.getEmail());
+			ensureUserRole(newUser);
 			targetUser = newUser;
 		}
 		
+		evictPrincipal(targetUser);
 		User savedUser = userRepository.save(targetUser);
 		
 		log.info("User persisted with id: {}. Sending verification email.", savedUser.getId());
@@ -88,13 +106,17 @@ public class UserService {
 		return convertToUserResponse(savedUser);
     }
     
-    public UserResponse verifyEmail(String otpCode) {
-		log.info("Verifying email with OTP: {}", otpCode);
-		Optional<VerificationToken> tokenOpt = verificationTokenRepository
-			.findByOtpCodeAndTypeAndExpiryTimeAfter(otpCode, VerificationToken.TokenType.EMAIL_VERIFICATION, LocalDateTime.now());
+    public UserResponse verifyEmail(String email, String otpCode, String clientIp) {
+		log.info("Verifying email for: {}", email);
+		String account = email.trim().toLowerCase(Locale.ROOT);
+		otpAttemptGuard.checkAllowed(account, clientIp);
+		
+		Optional<VerificationToken> tokenOpt = verificationTokenStore
+			.findActiveByEmail(email, VerificationToken.TokenType.EMAIL_VERIFICATION, LocalDateTime.now());
 		
-		if (tokenOpt.isEmpty()) {
-			log.warn("Invalid or expired OTP during verification: {}", otpCode);
+		if (tokenOpt.isEmpty() || !OtpGenerator.matches(tokenOpt.get().getOtpCode(), otpCode)) {
+			log.warn("Invalid or expired OTP during verification for: {}", email);
+			otpAttemptGuard.recordFailure(account, clientIp);
 			throw new InvalidOtpException("Invalid or expired OTP code");
 		}
 		
@@ -107,10 +129,12 @@ public class UserService {
 		}
 		
 		user.setIsVerified(true);
+		evictPrincipal(user);
 		userRepository.save(user);
 		
 		// Delete the used token
-		verificationTokenRepository.delete(token);
+		verificationTokenStore.consume(token);
+		otpAttemptGuard.recordSuccess(account);
 		
 		log.info("Email verified successfully for user id: {}", user.getId());
 		return convertToUserResponse(user);
@@ -129,8 +153,8 @@ public class UserService {
 			throw new InvalidOtpException("Email already verified");
 		}
 		
-		emailService.sendVerificationEmail(user, VerificationToken.TokenType.EMAIL_VERIFICATION);
-		log.info("Verification email re-sent for user id: {}", user.getId());
+		emailService.resendVerificationEmail(user, VerificationToken.TokenType.EMAIL_VERIFICATION);
+		log.info("Verification email resend handled for user id: {}", user.getId());
     }
     
     public UserResponse updateProfile(UUID userId, UpdateProfileRequest request) {
@@ -147,6 +171,7 @@ public class UserService {
             user.setLastName(request.getLastName());
         }
         
+        evictPrincipal(user);
         User updatedUser = userRepository.save(user);
         return convertToUserResponse(updatedUser);
     }
@@ -167,32 +192,33 @@ public class UserService {
 		log.info("Email change verification sent for user id: {}", userId);
     }
     
-    public UserResponse verifyNewEmail(UUID userId, String otpCode) {
+    public UserResponse verifyNewEmail(UUID userId, String otpCode, String clientIp) {
+		String account = userId.toString();
+		otpAttemptGuard.checkAllowed(account, clientIp);
+		
 		User user = userRepository.findByIdAndIsEnabledTrue(userId)
 			.orElseThrow(() -> {
 				log.warn("Verify new email failed because user not found: {}", userId);
 				return new UserNotFoundException("User not found");
 			});
         
-		Optional<VerificationToken> tokenOpt = verificationTokenRepository
-			.findByOtpCodeAndTypeAndExpiryTimeAfter(otpCode, VerificationToken.TokenType.EMAIL_CHANGE, LocalDateTime.now());
+		Optional<VerificationToken> tokenOpt = verificationTokenStore
+			.findActive(user, VerificationToken.TokenType.EMAIL_CHANGE, LocalDateTime.now());
 		
-		if (tokenOpt.isEmpty()) {
-			log.warn("Invalid or expired OTP during email change for user id {}: {}", userId, otpCode);
+		if (tokenOpt.isEmpty() || !OtpGenerator.matches(tokenOpt.get().getOtpCode(), otpCode)) {
+			log.warn("Invalid or expired OTP during email change for user id: {}", userId);
+			otpAttemptGuard.recordFailure(account, clientIp);
 			throw new InvalidOtpException("Invalid or expired OTP code");
 		}
 		
 		VerificationToken token = tokenOpt.get();
-		if (!token.getUser().getId().equals(userId)) {
-			log.warn("OTP {} does not belong to user id {}", otpCode, userId);
-			throw new InvalidOtpException("Invalid OTP code for this user");
-		}
         
         // Note: In a real implementation, you'd need to store the new email temporarily
         // For this example, we'll assume the new email is passed in the request
         // This would require additional fields in VerificationToken or a separate table
         
-		verificationTokenRepository.delete(token);
+		verificationTokenStore.consume(token);
+		otpAttemptGuard.recordSuccess(account);
 		log.info("New email verified for user id: {}", userId);
 		return convertToUserResponse(user);
     }
@@ -210,7 +236,10 @@ public class UserService {
 		}
 		
 		user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+		bumpSecurityVersion(user);
+		evictPrincipal(user);
 		userRepository.save(user);
+		refreshTokenService.revokeAll(userId);
 		log.info("Password updated for user id: {}", userId);
     }
     
@@ -224,34 +253,28 @@ public class UserService {
         // Soft delete
         user.setIsEnabled(false);
         user.setIsVerified(false);
+        bumpSecurityVersion(user);
+        evictPrincipal(user);
         userRepository.save(user);
         
 		// Delete all verification tokens for this user
-		verificationTokenRepository.deleteByUserAndType(userId, VerificationToken.TokenType.EMAIL_VERIFICATION.name());
-		verificationTokenRepository.deleteByUserAndType(userId, VerificationToken.TokenType.PASSWORD_RESET.name());
-		verificationTokenRepository.deleteByUserAndType(userId, VerificationToken.TokenType.EMAIL_CHANGE.name());
+		verificationTokenStore.deleteAllForUser(userId);
+		refreshTokenService.revokeAll(userId);
 		log.info("Account soft-deleted and tokens cleared for user id: {}", userId);
     }
     
-    public UserResponse getUserProfile(UUID userId) {
-		User user = userRepository.findByIdAndIsEnabledTrue(userId)
+    // Through the second-level cache, which this node's writes keep current
+    @Transactional(readOnly = true)
+    public UserResponse getUserResponse(UUID userId) {
+		return userRepository.findByIdAndIsEnabledTrue(userId)
+			.map(this::convertToUserResponse)
 			.orElseThrow(() -> {
-				log.warn("Get user profile failed because user not found: {}", userId);
+				log.warn("Get user failed because user not found: {}", userId);
 				return new UserNotFoundException("User not found");
 			});
-        
-		return convertToUserResponse(user);
-    }
-    
-    public User findByEmail(String email) {
-		return userRepository.findByEmail(email)
-			.orElseThrow(() -> {
-				log.warn("Find by email failed because user not found: {}", email);
-				return new UserNotFoundException("User not found with email: " + email);
-			});
     }
     
-    private UserResponse convertToUserResponse(User user) {
+    public UserResponse convertToUserResponse(User user) {
         UserResponse response = new UserResponse();
         response.setId(user.getId());
         response.setEmail(user.getEmail());
@@ -262,23 +285,41 @@ public class UserService {
         response.setCreatedAt(user.getCreatedAt());
         response.setUpdatedAt(user.getUpdatedAt());
         
-        Set<String> roleNames = user.getRoles().stream()
-            .map(role -> role.getName().name())
-            .collect(Collectors.toSet());
-        response.setRoles(roleNames);
+        response.setRoles(Role.RoleName.namesOf(user.getRoleMask() != null ? user.getRoleMask() : 0));
         
         return response;
     }
 	
-	private void ensureUserRole(User user, String emailForLog) {
-		Role userRole = roleRepository.findByName(Role.RoleName.USER)
-			.orElseThrow(() -> {
-				log.error("USER role missing while processing email: {}", emailForLog);
-				return new RuntimeException("USER role not found");
-			});
-		if (user.getRoles() == null) {
-			user.setRoles(new HashSet<>());
-		}
-		user.getRoles().add(userRole);
+	private void ensureUserRole(User user) {
+		user.addRole(roleRegistry.get(Role.RoleName.USER));
+	}
+	
+	// Evicts now and again after commit. A login that read the pre-commit row and finishes after the second
+	// evict is not cached either: PrincipalCache drops puts whose key was evicted while they were loading
+	private void evictPrincipal(User user) {
+		String email = user.getEmail();
+		principalCache.evict(email);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				principalCache.evict(email);
+			}
+		});
+	}
+	
+	// Invalidates every access token issued before this change once the transaction commits; call after
+	// isEnabled has its final value
+	private void bumpSecurityVersion(User user) {
+		int version = (user.getSecurityVersion() != null ? user.getSecurityVersion() : 0) + 1;
+		user.setSecurityVersion(version);
+		
+		UUID userId = user.getId();
+		boolean enabled = Boolean.TRUE.equals(user.getIsEnabled());
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				securityVersionRegistry.record(userId, version, enabled);
+			}
+		});
 	}
 }
@@ -0,0 +1,251 @@
+package com.euem.server.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@code verification_tokens} as a PostgreSQL table range-partitioned by day on {@code expiry_time}.
+ * On startup a plain table is converted in one transaction: live rows are copied, expired ones are
+ * left behind. The maintenance job then keeps {@code premake-days} of future partitions and detaches
+ * and drops every partition whose day has fully expired, so expiry never deletes single rows.
+ * <p>
+ * PostgreSQL requires unique constraints to include the partition key, so the primary key becomes
+ * {@code (id, expiry_time)} and {@code uk_verification_tokens_user_type} is redeclared on
+ * {@code (user_id, type, expiry_time)}. Keeping the entity's constraint name means Hibernate's schema
+ * update finds it and does not try to add the unpartitioned form back. One live code per user and type
+ * is kept by {@link JpaVerificationTokenStore#issue}, which takes a per-user-and-type advisory lock
+ * before replacing the previous code.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "app.otp.partitioning.enabled", havingValue = "true")
+public class VerificationTokenPartitionManager {
+
+	private static final Logger log = LoggerFactory.getLogger(VerificationTokenPartitionManager.class);
+
+	private static final String TABLE = "verification_tokens";
+
+	private static final String UNPARTITIONED_TABLE = "verification_tokens_unpartitioned";
+
+	private static final String PARTITION_PREFIX = TABLE + "_p";
+
+	// Same name as the entity's unique constraint on (user_id, type)
+	private static final String USER_TYPE_CONSTRAINT = "uk_verification_tokens_user_type";
+
+	// Index that stood in for the constraint on tables converted before it was redeclared
+	private static final String LEGACY_USER_TYPE_INDEX = "idx_verification_tokens_user_type";
+
+	private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+	// Serializes conversion and maintenance across instances
+	private static final long ADVISORY_LOCK_KEY = 0x5654_5041_5254L;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${app.otp.partitioning.premake-days:3}")
+	private int premakeDays;
+
+	// How long a partition is kept after the last of its codes expired
+	@Value("${app.otp.partitioning.drop-grace-minutes:60}")
+	private long dropGraceMinutes;
+
+	@Value("${app.otp.partitioning.maintenance-interval-minutes:60}")
+	private long maintenanceIntervalMinutes;
+
+	private ScheduledExecutorService executor;
+
+	private TransactionTemplate transactionTemplate;
+
+	private Counter createdCounter;
+
+	private Counter droppedCounter;
+
+	@PostConstruct
+	void init() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		createdCounter = Counter.builder("euem.otp.partitions.created").register(meterRegistry);
+		droppedCounter = Counter.builder("euem.otp.partitions.dropped")
+			.description("Expired verification token partitions detached and dropped")
+			.register(meterRegistry);
+
+		// Runs before the application takes traffic so inserts always find a partition
+		ensurePartitioned();
+		maintain();
+
+		ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "verification-token-partitions");
+			thread.setDaemon(true);
+			return thread;
+		});
+		pool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		executor = pool;
+		executor.scheduleWithFixedDelay(this::maintainSafely,
+			maintenanceIntervalMinutes, maintenanceIntervalMinutes, TimeUnit.MINUTES);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Converts a plain {@code verification_tokens} table; a no-op once it is partitioned.
+	 */
+	public void ensurePartitioned() {
+		transactionTemplate.executeWithoutResult(status -> {
+			lock();
+			if (!isPartitioned()) {
+				convert();
+			} else if (!hasUserTypeConstraint()) {
+				jdbcTemplate.execute("DROP INDEX IF EXISTS " + LEGACY_USER_TYPE_INDEX);
+				addUserTypeConstraint();
+			}
+		});
+	}
+
+	/**
+	 * Creates the partitions for today and the next {@code premake-days} days and drops expired ones.
+	 */
+	public void maintain() {
+		transactionTemplate.executeWithoutResult(status -> {
+			lock();
+			LocalDate today = LocalDate.now();
+			createPartitions(today, today.plusDays(premakeDays));
+
+			LocalDateTime dropBefore = LocalDateTime.now().minusMinutes(dropGraceMinutes);
+			for (String partition : listPartitions()) {
+				LocalDate day = partitionDay(partition);
+				if (day != null && !day.plusDays(1).atStartOfDay().isAfter(dropBefore)) {
+					// Both statements only touch catalog entries, whatever the partition holds
+					jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+					jdbcTemplate.execute("DROP TABLE " + partition);
+					droppedCounter.increment();
+					log.info("Dropped expired verification token partition {}", partition);
+				}
+			}
+		});
+	}
+
+	public List<String> listPartitions() {
+		return jdbcTemplate.queryForList(
+			"SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+			"WHERE i.inhparent = to_regclass(?) ORDER BY c.relname", String.class, TABLE);
+	}
+
+	private void maintainSafely() {
+		try {
+			maintain();
+		} catch (Exception e) {
+			// Keep the scheduled task alive; premade partitions cover the gap until the next run
+			log.error("Verification token partition maintenance failed: {}", e.getMessage(), e);
+		}
+	}
+
+	private void convert() {
+		log.info("Converting {} to a table partitioned by expiry_time", TABLE);
+		jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + UNPARTITIONED_TABLE);
+		jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + UNPARTITIONED_TABLE + " INCLUDING DEFAULTS) " +
+			"PARTITION BY RANGE (expiry_time)");
+
+		// Foreign keys keep their names so schema validation still recognises them
+		List<String> constraints = jdbcTemplate.queryForList(
+			"SELECT 'CONSTRAINT ' || quote_ident(conname) || ' ' || pg_get_constraintdef(oid) FROM pg_constraint " +
+			"WHERE conrelid = to_regclass(?) AND contype IN ('f', 'c')", String.class, UNPARTITIONED_TABLE);
+		for (String constraint : constraints) {
+			jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD " + constraint);
+		}
+
+		LocalDate today = LocalDate.now();
+		LocalDateTime latestExpiry = jdbcTemplate.queryForObject(
+			"SELECT max(expiry_time) FROM " + UNPARTITIONED_TABLE, LocalDateTime.class);
+		LocalDate lastDay = today.plusDays(premakeDays);
+		if (latestExpiry != null && latestExpiry.toLocalDate().isAfter(lastDay)) {
+			lastDay = latestExpiry.toLocalDate();
+		}
+		createPartitions(today, lastDay);
+
+		int copied = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + UNPARTITIONED_TABLE +
+			" WHERE expiry_time >= ?", today.atStartOfDay());
+		jdbcTemplate.execute("DROP TABLE " + UNPARTITIONED_TABLE);
+
+		jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT pk_verification_tokens PRIMARY KEY (id, expiry_time)");
+		addUserTypeConstraint();
+		log.info("Partitioned {}, {} live tokens copied", TABLE, copied);
+	}
+
+	private void createPartitions(LocalDate from, LocalDate to) {
+		for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+			String partition = PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+			Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+			if (Boolean.TRUE.equals(exists)) {
+				continue;
+			}
+			jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + TABLE +
+				" FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+			createdCounter.increment();
+			log.debug("Created verification token partition {}", partition);
+		}
+	}
+
+	private void addUserTypeConstraint() {
+		jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + USER_TYPE_CONSTRAINT +
+			" UNIQUE (user_id, type, expiry_time)");
+	}
+
+	private boolean hasUserTypeConstraint() {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+			"SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = to_regclass(?) AND conname = ?)",
+			Boolean.class, TABLE, USER_TYPE_CONSTRAINT));
+	}
+
+	private boolean isPartitioned() {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+			"SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))",
+			Boolean.class, TABLE));
+	}
+
+	private void lock() {
+		jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, ADVISORY_LOCK_KEY);
+	}
+
+	private static LocalDate partitionDay(String partition) {
+		if (!partition.startsWith(PARTITION_PREFIX)) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+}
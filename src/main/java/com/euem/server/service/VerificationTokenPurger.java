@@ -0,0 +1,81 @@
+package com.euem.server.service;
+
+import com.euem.server.repository.VerificationTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Deletes expired rows from {@code verification_tokens} with a {@link BatchedPurge}, chunk by chunk in
+ * short transactions. Not scheduled when {@link VerificationTokenPartitionManager} handles expiry.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "jpa", matchIfMissing = true)
+public class VerificationTokenPurger {
+
+	private static final Logger log = LoggerFactory.getLogger(VerificationTokenPurger.class);
+
+	@Autowired
+	private VerificationTokenRepository verificationTokenRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${app.otp.purge.enabled:true}")
+	private boolean enabled;
+
+	// Partitioned tables expire by dropping whole partitions instead
+	@Value("${app.otp.partitioning.enabled:false}")
+	private boolean partitioned;
+
+	@Value("${app.otp.purge.interval-ms:60000}")
+	private long intervalMs;
+
+	@Value("${app.otp.purge.batch-size:1000}")
+	private int batchSize;
+
+	@Value("${app.otp.purge.max-batches-per-run:100}")
+	private int maxBatchesPerRun;
+
+	// Pause between chunks so replicas and autovacuum keep up during a large purge
+	@Value("${app.otp.purge.batch-pause-ms:50}")
+	private long batchPauseMs;
+
+	private BatchedPurge purge;
+
+	@PostConstruct
+	void init() {
+		purge = new BatchedPurge("euem.otp.purge", "verification tokens",
+			new BatchedPurge.Settings(batchSize, maxBatchesPerRun, batchPauseMs),
+			verificationTokenRepository::deleteExpiredBatch, verificationTokenRepository::countByExpiryTimeBefore,
+			transactionManager, meterRegistry);
+
+		if (!enabled || partitioned) {
+			log.info("Verification token purge disabled");
+			return;
+		}
+		purge.start("verification-token-purge", intervalMs);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		purge.shutdown();
+	}
+
+	/**
+	 * Deletes expired tokens batch by batch and returns how many were removed.
+	 */
+	public int purgeExpired() {
+		return purge.run();
+	}
+}
@@ -0,0 +1,37 @@
+package com.euem.server.service;
+
+import com.euem.server.entity.User;
+import com.euem.server.entity.VerificationToken;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Holds the live OTP codes, at most one per user and token type. Selected with {@code app.otp.store}:
+ * {@code jpa} (default) keeps them in {@code verification_tokens}, {@code memory} keeps them in this
+ * process only and is meant for single-node deployments.
+ */
+public interface VerificationTokenStore {
+
+	/**
+	 * Stores a new code for the user and type, replacing any earlier one.
+	 */
+	VerificationToken issue(User user, VerificationToken.TokenType type, String otpCode, LocalDateTime expiryTime);
+
+	Optional<VerificationToken> findActive(User user, VerificationToken.TokenType type, LocalDateTime validAt);
+
+	Optional<VerificationToken> findActiveByEmail(String email, VerificationToken.TokenType type, LocalDateTime now);
+
+	/**
+	 * Claims a resend of {@code token}: true for exactly one caller per cooldown window.
+	 */
+	boolean markResent(VerificationToken token, LocalDateTime now, LocalDateTime cooldownStart);
+
+	/**
+	 * Removes a code after it was used; a newer code issued in the meantime is kept.
+	 */
+	void consume(VerificationToken token);
+
+	void deleteAllForUser(UUID userId);
+}
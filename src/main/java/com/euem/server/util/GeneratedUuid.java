@@ -0,0 +1,18 @@
+package com.euem.server.util;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code UUID} identifier generated by {@link UuidIdGenerator}: time-ordered v7 by default,
+ * random v4 with {@code app.ids.uuid-version=4}.
+ */
+@IdGeneratorType(UuidIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface GeneratedUuid {
+}
@@ -0,0 +1,133 @@
+package com.euem.server.util;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: timeouts hang off the slot for their deadline tick in intrusive doubly linked
+ * lists, so scheduling and cancelling are O(1) and advancing only visits the slots whose ticks have
+ * passed. Not thread-safe; callers serialize access.
+ */
+public class HashedTimingWheel<T> {
+
+    private final Timeout<T>[] slots;
+
+    private final int mask;
+
+    private final long tickMillis;
+
+    private final long origin;
+
+    // Last tick whose slot has been processed
+    private long currentTick;
+
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(Duration tick, int slotCount, long nowMillis) {
+        int normalized = Integer.highestOneBit(Math.max(2, slotCount - 1) << 1);
+        this.slots = (Timeout<T>[]) new Timeout<?>[normalized];
+        this.mask = normalized - 1;
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.origin = nowMillis;
+    }
+
+    public Timeout<T> schedule(T value, long deadlineMillis) {
+        long tick = Math.floorDiv(deadlineMillis - origin + tickMillis - 1, tickMillis);
+        Timeout<T> timeout = new Timeout<>(value, Math.max(tick, currentTick + 1));
+        link(timeout);
+        return timeout;
+    }
+
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout.slot < 0) {
+            return false;
+        }
+        unlink(timeout);
+        return true;
+    }
+
+    /**
+     * Processes every slot whose tick has passed and hands the expired values to {@code onExpire}.
+     *
+     * @return the number of timeouts that expired
+     */
+    public int advance(long nowMillis, Consumer<T> onExpire) {
+        long nowTick = Math.floorDiv(nowMillis - origin, tickMillis);
+        if (nowTick <= currentTick) {
+            return 0;
+        }
+
+        // After a pause longer than one revolution every slot is visited once, not once per missed tick
+        long ticks = Math.min(nowTick - currentTick, slots.length);
+        int expired = 0;
+        for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+            Timeout<T> timeout = slots[(int) (tick & mask)];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                // Entries for later revolutions share the slot and stay put
+                if (timeout.deadlineTick <= nowTick) {
+                    unlink(timeout);
+                    onExpire.accept(timeout.value);
+                    expired++;
+                }
+                timeout = next;
+            }
+        }
+        currentTick = nowTick;
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void link(Timeout<T> timeout) {
+        int slot = (int) (timeout.deadlineTick & mask);
+        Timeout<T> head = slots[slot];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        slots[slot] = timeout;
+        timeout.slot = slot;
+        size++;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.slot = -1;
+        size--;
+    }
+
+    public static final class Timeout<T> {
+
+        private final T value;
+
+        private final long deadlineTick;
+
+        private Timeout<T> prev;
+
+        private Timeout<T> next;
+
+        private int slot = -1;
+
+        private Timeout(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T value() {
+            return value;
+        }
+    }
+}
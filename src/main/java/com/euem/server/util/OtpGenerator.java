@@ -0,0 +1,32 @@
+package com.euem.server.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+public final class OtpGenerator {
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    private OtpGenerator() {
+    }
+    
+    public static String generate(int length) {
+        char[] digits = new char[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = (char) ('0' + RANDOM.nextInt(10));
+        }
+        return new String(digits);
+    }
+    
+    // Compares in constant time so response timing does not reveal how many leading digits matched
+    public static boolean matches(String expected, String provided) {
+        if (expected == null || provided == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+            expected.getBytes(StandardCharsets.UTF_8),
+            provided.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
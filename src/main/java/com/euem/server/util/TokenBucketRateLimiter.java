@@ -0,0 +1,208 @@
+package com.euem.server.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Keyed token buckets with bounded memory. Each bucket is a single {@link AtomicLong} holding the last
+ * refill time and the remaining tokens, updated with CAS so acquiring never blocks. Callers that defer
+ * work instead of dropping it can {@link #reserve} a slot; the bucket then keeps the next free slot, so
+ * deferred work lines up across calls and newcomers queue behind it. When the map is full, idle buckets
+ * are dropped first and then the ones closest to idle, so a new key is always admitted while the most
+ * depleted buckets, the ones actually holding someone back, are the last to go. A flood of fresh keys
+ * therefore mostly evicts its own barely used buckets instead of locking out every other new key.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    // Tokens are tracked in thousandths of a permit so slow refill rates do not round to zero
+    private static final long PERMIT = 1000;
+    private static final int MAX_CAPACITY = (int) (TOKEN_MASK / PERMIT);
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final int maxKeys;
+
+    private final LongSupplier nanoTime;
+
+    private final long origin;
+
+    // One thread sheds at a time; the others insert meanwhile and overshoot maxKeys briefly
+    private final AtomicBoolean shedding = new AtomicBoolean();
+
+    public TokenBucketRateLimiter(int maxKeys) {
+        this(maxKeys, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime monotonic time source in nanoseconds, {@link System#nanoTime} outside tests
+     */
+    public TokenBucketRateLimiter(int maxKeys, LongSupplier nanoTime) {
+        this.maxKeys = maxKeys;
+        this.nanoTime = nanoTime;
+        this.origin = nanoTime.getAsLong();
+    }
+
+    /**
+     * Takes one permit from the bucket for {@code key}.
+     *
+     * @return 0 when the permit was granted, otherwise the milliseconds until one becomes available
+     */
+    public long tryAcquire(String key, int capacity, Duration period) {
+        return tryAcquire(key, capacity, period, false);
+    }
+
+    /**
+     * @param queued whether the caller holds a slot from {@link #reserve}; it is then not sent to the back
+     *               of the queue again and only needs a token
+     */
+    public long tryAcquire(String key, int capacity, Duration period, boolean queued) {
+        if (capacity <= 0) {
+            return 0;
+        }
+
+        long now = nowMillis();
+        return bucket(key, capacity, period, now).tryAcquire(now, queued);
+    }
+
+    /**
+     * Books the next free slot for {@code key}, no earlier than {@code waitMillis} from now. Slots are one
+     * refill interval apart.
+     *
+     * @return the milliseconds until the booked slot
+     */
+    public long reserve(String key, int capacity, Duration period, long waitMillis) {
+        if (capacity <= 0) {
+            return waitMillis;
+        }
+
+        long now = nowMillis();
+        return bucket(key, capacity, period, now).reserve(now, waitMillis);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private Bucket bucket(String key, int capacity, Duration period, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                makeRoom(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, period, now));
+        }
+        return bucket;
+    }
+
+    // Frees an eighth of the map so the scan is not repeated for every new key. Idle buckets are full again
+    // with nothing queued and carry no state worth keeping; after them the least depleted buckets go
+    private void makeRoom(long now) {
+        if (!shedding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Candidate> limited = new ArrayList<>();
+            for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+                long idleIn = entry.getValue().millisUntilIdle(now);
+                if (idleIn == 0) {
+                    buckets.remove(entry.getKey(), entry.getValue());
+                } else {
+                    limited.add(new Candidate(entry.getKey(), entry.getValue(), idleIn));
+                }
+            }
+
+            int excess = buckets.size() - (maxKeys - Math.max(1, maxKeys / 8));
+            if (excess > 0) {
+                limited.sort(Comparator.comparingLong(Candidate::idleIn));
+                for (int i = 0; i < Math.min(excess, limited.size()); i++) {
+                    buckets.remove(limited.get(i).key(), limited.get(i).bucket());
+                }
+            }
+        } finally {
+            shedding.set(false);
+        }
+    }
+
+    private long nowMillis() {
+        return (nanoTime.getAsLong() - origin) / 1_000_000;
+    }
+
+    private record Candidate(String key, Bucket bucket, long idleIn) {
+    }
+
+    private static final class Bucket {
+
+        private final long capacity;
+
+        private final double refillPerMilli;
+
+        private final AtomicLong state;
+
+        // Start of the next free slot for deferred callers; in the past while nothing is queued
+        private final AtomicLong nextSlot = new AtomicLong();
+
+        Bucket(int permits, Duration period, long now) {
+            this.capacity = Math.min(permits, MAX_CAPACITY) * PERMIT;
+            this.refillPerMilli = (double) capacity / Math.max(1, period.toMillis());
+            this.state = new AtomicLong(pack(now, capacity));
+        }
+
+        long tryAcquire(long now, boolean queued) {
+            if (!queued) {
+                long next = nextSlot.get();
+                if (next > now) {
+                    return next - now;
+                }
+            }
+            while (true) {
+                long current = state.get();
+                long last = current >>> TOKEN_BITS;
+                long refill = (long) (Math.max(0, now - last) * refillPerMilli);
+                long available = Math.min(capacity, (current & TOKEN_MASK) + refill);
+
+                if (available < PERMIT) {
+                    return (long) Math.ceil((PERMIT - available) / refillPerMilli);
+                }
+
+                // Keep the old timestamp while the refill still rounds to zero so fractions accumulate
+                long stamp = refill > 0 ? now : last;
+                if (state.compareAndSet(current, pack(stamp, available - PERMIT))) {
+                    return 0;
+                }
+            }
+        }
+
+        long reserve(long now, long waitMillis) {
+            long interval = Math.max(1, (long) Math.ceil(PERMIT / refillPerMilli));
+            while (true) {
+                long current = nextSlot.get();
+                long slot = Math.max(now + waitMillis, current);
+                if (nextSlot.compareAndSet(current, slot + interval)) {
+                    return slot - now;
+                }
+            }
+        }
+
+        long millisUntilIdle(long now) {
+            long current = state.get();
+            long refill = (long) (Math.max(0, now - (current >>> TOKEN_BITS)) * refillPerMilli);
+            long missing = capacity - (current & TOKEN_MASK) - refill;
+            long refillMillis = missing > 0 ? (long) Math.ceil(missing / refillPerMilli) : 0;
+            return Math.max(refillMillis, nextSlot.get() - now);
+        }
+
+        private static long pack(long timestamp, long tokens) {
+            return (timestamp << TOKEN_BITS) | tokens;
+        }
+    }
+}
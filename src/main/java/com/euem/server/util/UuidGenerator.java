@@ -1,13 +1,54 @@
 package com.euem.server.util;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.security.SecureRandom;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class UuidGenerator {
-    
+
+    private static final int COUNTER_BITS = 12;
+
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    // Unix millis shifted left by COUNTER_BITS plus a sequence within the millisecond
+    private static final AtomicLong lastStamp = new AtomicLong();
+
+    // One generator per thread so the random bits never contend on a shared lock
+    private static final ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(SecureRandom::new);
+
+    @Value("${app.ids.uuid-version:7}")
+    private int version;
+
     public UUID generateUuid() {
-        return UUID.randomUUID();
+        return generate(version);
+    }
+
+    public static UUID generate(int version) {
+        return version == 4 ? UUID.randomUUID() : v7();
+    }
+
+    /**
+     * RFC 9562 version 7 UUID: 48-bit Unix millisecond timestamp, a 12-bit counter in {@code rand_a}
+     * that keeps ids from one process strictly increasing, and 62 random bits. When more than 4096 ids
+     * are requested within one millisecond the counter carries into the timestamp, which runs ahead of
+     * the clock until the burst is over.
+     */
+    public static UUID v7() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long stamp;
+        long next;
+        do {
+            stamp = lastStamp.get();
+            next = Math.max(now, stamp + 1);
+        } while (!lastStamp.compareAndSet(stamp, next));
+
+        long millis = next >>> COUNTER_BITS;
+        long mostSigBits = (millis << 16) | 0x7000L | (next & COUNTER_MASK);
+        long leastSigBits = (random.get().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
     }
 }
@@ -0,0 +1,38 @@
+package com.euem.server.util;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Hibernate identifier generator behind {@link GeneratedUuid}. The UUID version is read once from the
+ * {@value #VERSION_SETTING} Hibernate setting, which mirrors {@code app.ids.uuid-version}.
+ */
+public class UuidIdGenerator implements BeforeExecutionGenerator {
+
+    public static final String VERSION_SETTING = "euem.ids.uuid_version";
+
+    private final int version;
+
+    public UuidIdGenerator(GeneratedUuid config, Member member, CustomIdGeneratorCreationContext context) {
+        this.version = Integer.parseInt(context.getServiceRegistry().getService(ConfigurationService.class)
+            .getSetting(VERSION_SETTING, StandardConverters.STRING, "7"));
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return UuidGenerator.generate(version);
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
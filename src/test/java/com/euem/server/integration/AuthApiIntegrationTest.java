@@ -2,6 +2,7 @@ package com.euem.server.integration;
 
 import com.euem.server.entity.User;
 import com.euem.server.entity.VerificationToken;
+import com.euem.server.repository.EmailOutboxRepository;
 import com.euem.server.repository.UserRepository;
 import com.euem.server.repository.VerificationTokenRepository;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -41,6 +42,9 @@ class AuthApiIntegrationTest {
 	@Autowired
 	private VerificationTokenRepository verificationTokenRepository;
 	
+	@Autowired
+	private EmailOutboxRepository emailOutboxRepository;
+	
 	private static final String TEST_EMAIL = "no-reply@euem.net";
 	private static final String TEST_PASSWORD = "TestPassword123!";
 	private static final String TEST_FIRST_NAME = "API";
@@ -155,9 +159,10 @@ class AuthApiIntegrationTest {
 		
 		String requestBody = String.format("""
 			{
+				"email": "%s",
 				"otpCode": "%s"
 			}
-			""", otpCode);
+			""", TEST_EMAIL, otpCode);
 		
 		mockMvc.perform(post("/auth/verify-email")
 				.contentType(MediaType.APPLICATION_JSON)
@@ -190,6 +195,39 @@ class AuthApiIntegrationTest {
 				.andExpect(jsonPath("$.success").value(true));
 		
 		System.out.println("✓ Resend OTP successful - New email sent to: " + TEST_EMAIL);
+		
+		VerificationToken issued = currentVerificationToken();
+		long queuedBefore = queuedEmailCount();
+		
+		// A second tap inside the cooldown gets the same answer but neither a new code nor another email
+		mockMvc.perform(post("/auth/resend-otp")
+				.param("email", TEST_EMAIL))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.message").value("Verification code sent to your email"))
+				.andExpect(jsonPath("$.success").value(true));
+		
+		VerificationToken afterResend = currentVerificationToken();
+		Assertions.assertEquals(issued.getId(), afterResend.getId(), "Token should not be replaced within the cooldown");
+		Assertions.assertEquals(issued.getOtpCode(), afterResend.getOtpCode(), "OTP code should stay the same");
+		Assertions.assertEquals(queuedBefore, queuedEmailCount(), "No email should be queued within the cooldown");
+		
+		System.out.println("✓ Resend within cooldown answered without a new email");
+	}
+	
+	private VerificationToken currentVerificationToken() {
+		User user = userRepository.findByEmail(TEST_EMAIL)
+			.orElseThrow(() -> new AssertionError("Test user not found"));
+		return verificationTokenRepository.findAll().stream()
+			.filter(token -> token.getUser().getId().equals(user.getId()))
+			.filter(token -> token.getType() == VerificationToken.TokenType.EMAIL_VERIFICATION)
+			.findFirst()
+			.orElseThrow(() -> new AssertionError("Verification token not found"));
+	}
+	
+	private long queuedEmailCount() {
+		return emailOutboxRepository.findAll().stream()
+			.filter(message -> message.getRecipient().equals(TEST_EMAIL))
+			.count();
 	}
 	
 	@Test
@@ -0,0 +1,327 @@
+package com.euem.server.integration;
+
+import com.euem.server.entity.EmailOutboxMessage;
+import com.euem.server.entity.User;
+import com.euem.server.entity.VerificationToken;
+import com.euem.server.repository.EmailOutboxRepository;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.repository.VerificationTokenRepository;
+import com.euem.server.service.EmailOutboxDispatcher;
+import com.euem.server.service.EmailOutboxService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(6)
+class EmailOutboxIntegrationTest {
+
+	private static final FakeSmtpServer smtpServer = startSmtpServer();
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private VerificationTokenRepository verificationTokenRepository;
+
+	@Autowired
+	private EmailOutboxRepository emailOutboxRepository;
+
+	@Autowired
+	private EmailOutboxService emailOutboxService;
+
+	@Autowired
+	private EmailOutboxDispatcher emailOutboxDispatcher;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private static final String TEST_EMAIL = "outbox-test@euem.net";
+	private static final String TEST_PASSWORD = "TestPassword123!";
+	private static final String THROTTLED_RECIPIENT = "bulk@throttle.test";
+	private static final String FAILED_RECIPIENT = "given-up@outbox.test";
+
+	@DynamicPropertySource
+	static void mailProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.mail.host", () -> "localhost");
+		registry.add("spring.mail.port", smtpServer::getPort);
+		registry.add("spring.mail.username", () -> "");
+		registry.add("spring.mail.password", () -> "");
+		registry.add("spring.mail.properties.mail.smtp.auth", () -> "false");
+		registry.add("spring.mail.properties.mail.smtp.starttls.enable", () -> "false");
+		registry.add("spring.mail.properties.mail.smtp.starttls.required", () -> "false");
+		registry.add("app.mail.outbox.poll-interval-ms", () -> "200");
+		registry.add("app.mail.outbox.initial-backoff-ms", () -> "200");
+		// The retry test resends right after registering
+		registry.add("app.otp.resend-cooldown-seconds", () -> "0");
+		registry.add("app.mail.scheduler.domains.[throttle.test].capacity", () -> "2");
+		registry.add("app.mail.scheduler.domains.[throttle.test].period", () -> "1h");
+	}
+
+	private static FakeSmtpServer startSmtpServer() {
+		try {
+			return new FakeSmtpServer();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("EMAIL OUTBOX INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		cleanUp();
+	}
+
+	@AfterAll
+	void afterAll() throws IOException {
+		cleanUp();
+		smtpServer.close();
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Email outbox tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test registration queues the verification email and the dispatcher delivers it")
+	void testRegistrationEmailDelivered() throws Exception {
+		smtpServer.reset();
+		// A slow mail server must not slow the request down
+		smtpServer.setResponseDelay(Duration.ofMillis(300));
+
+		String requestBody = String.format("""
+			{
+				"email": "%s",
+				"password": "%s",
+				"firstName": "Outbox",
+				"lastName": "Test"
+			}
+			""", TEST_EMAIL, TEST_PASSWORD);
+
+		long start = System.nanoTime();
+		mockMvc.perform(post("/auth/register")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(requestBody))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.email").value(TEST_EMAIL));
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		System.out.println("Registration took " + elapsedMillis + " ms");
+
+		Assertions.assertTrue(elapsedMillis < 1500, "Registration should not wait for the SMTP exchange");
+
+		waitFor(() -> !smtpServer.getMessagesTo(TEST_EMAIL).isEmpty(), Duration.ofSeconds(15));
+		smtpServer.setResponseDelay(Duration.ZERO);
+
+		String otpCode = currentOtp();
+		Assertions.assertTrue(smtpServer.getMessagesTo(TEST_EMAIL).get(0).contains(otpCode),
+			"Delivered email should contain the stored OTP code");
+
+		waitFor(() -> outboxMessages().stream()
+			.allMatch(message -> message.getStatus() == EmailOutboxMessage.Status.SENT), Duration.ofSeconds(5));
+		outboxMessages().forEach(message -> {
+			Assertions.assertEquals("", message.getBody(), "A sent email must not keep its code");
+			Assertions.assertNull(message.getHtmlBody());
+		});
+
+		System.out.println("✓ Verification email delivered through the outbox");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test failed deliveries are retried until the mail server accepts them")
+	void testFailedDeliveryRetried() throws Exception {
+		smtpServer.reset();
+		smtpServer.setRejectMessages(true);
+
+		mockMvc.perform(post("/auth/resend-otp")
+				.param("email", TEST_EMAIL))
+				.andExpect(status().isOk());
+
+		waitFor(() -> outboxMessages().stream().anyMatch(message ->
+			message.getStatus() == EmailOutboxMessage.Status.PENDING
+				&& message.getAttempts() >= 1
+				&& message.getLastError() != null), Duration.ofSeconds(15));
+		Assertions.assertTrue(smtpServer.getMessagesTo(TEST_EMAIL).isEmpty(), "Rejected message should not be stored");
+		System.out.println("✓ Rejected email kept for retry");
+
+		smtpServer.setRejectMessages(false);
+		waitFor(() -> !smtpServer.getMessagesTo(TEST_EMAIL).isEmpty(), Duration.ofSeconds(15));
+
+		String otpCode = currentOtp();
+		Assertions.assertTrue(smtpServer.getMessagesTo(TEST_EMAIL).get(0).contains(otpCode),
+			"Retried email should contain the latest OTP code");
+
+		waitFor(() -> outboxMessages().stream()
+			.allMatch(message -> message.getStatus() == EmailOutboxMessage.Status.SENT), Duration.ofSeconds(5));
+
+		System.out.println("✓ Email delivered after retry");
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Test consecutive deliveries reuse a pooled SMTP connection")
+	void testPooledConnectionReused() throws Exception {
+		smtpServer.reset();
+
+		int count = 5;
+		for (int i = 0; i < count; i++) {
+			emailOutboxService.enqueue(TEST_EMAIL, "Pool test " + i, "Pooled delivery " + i);
+		}
+
+		waitFor(() -> smtpServer.getMessagesTo(TEST_EMAIL).size() == count, Duration.ofSeconds(15));
+		System.out.println("SMTP connections opened: " + smtpServer.getConnectionCount());
+
+		// The connection left idle by the previous test may be reused, so none or one new connection
+		Assertions.assertTrue(smtpServer.getConnectionCount() <= 1,
+			"Messages should share a pooled connection instead of reconnecting per message");
+
+		System.out.println("✓ " + count + " emails delivered over a pooled connection");
+	}
+
+	@Test
+	@Order(4)
+	@DisplayName("Test a throttled domain still lets urgent mail through")
+	void testDomainThrottlePrefersUrgent() throws Exception {
+		smtpServer.reset();
+
+		// 2 per hour for the domain, of which NORMAL mail may use one
+		for (int i = 0; i < 4; i++) {
+			emailOutboxService.enqueue(THROTTLED_RECIPIENT, "Bulk " + i, "Bulk message " + i,
+				EmailOutboxMessage.Priority.NORMAL);
+		}
+		emailOutboxService.enqueue(THROTTLED_RECIPIENT, "Reset", "Urgent message", EmailOutboxMessage.Priority.URGENT);
+
+		waitFor(() -> smtpServer.getMessagesTo(THROTTLED_RECIPIENT).size() >= 2, Duration.ofSeconds(15));
+		// Give the dispatcher a few more rounds to send anything it should not
+		Thread.sleep(1000);
+
+		List<FakeSmtpServer.ReceivedMessage> received = smtpServer.getMessagesTo(THROTTLED_RECIPIENT);
+		System.out.println("Delivered to throttled domain: " + received.size());
+		Assertions.assertEquals(2, received.size(), "Only the domain's capacity should be delivered");
+		Assertions.assertTrue(received.stream().anyMatch(message -> message.contains("Urgent message")),
+			"Urgent mail should not wait behind bulk mail");
+
+		List<EmailOutboxMessage> deferred = emailOutboxRepository.findAll().stream()
+			.filter(message -> message.getRecipient().equals(THROTTLED_RECIPIENT))
+			.filter(message -> message.getStatus() == EmailOutboxMessage.Status.PENDING)
+			.toList();
+		Assertions.assertEquals(3, deferred.size(), "Bulk mail over the limit should be deferred");
+		Assertions.assertTrue(deferred.stream().allMatch(message -> message.getAttempts() == 0),
+			"Deferral should not count as a delivery attempt");
+		Assertions.assertTrue(deferred.stream().allMatch(message -> message.getNextAttemptAt().isAfter(LocalDateTime.now())),
+			"Deferred mail should be due once the domain's bucket refills");
+		Assertions.assertTrue(deferred.stream().allMatch(message -> message.getDeferrals() == 1),
+			"Each deferral should be counted once");
+		List<LocalDateTime> dueTimes = deferred.stream().map(EmailOutboxMessage::getNextAttemptAt).sorted().toList();
+		for (int i = 1; i < dueTimes.size(); i++) {
+			Assertions.assertTrue(Duration.between(dueTimes.get(i - 1), dueTimes.get(i)).toMinutes() >= 59,
+				"Deferred mail should be spaced one refill interval apart, even across dispatch rounds");
+		}
+
+		System.out.println("✓ Urgent mail delivered while bulk mail is throttled");
+	}
+
+	@Test
+	@Order(5)
+	@DisplayName("Test a failed email loses its content and is purged after the failed retention period")
+	void testFailedEmailScrubbedAndPurged() {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		// Not due for a day, so the dispatcher leaves it alone
+		EmailOutboxMessage message = transactionTemplate.execute(status -> {
+			EmailOutboxMessage pending = emailOutboxService.enqueue(FAILED_RECIPIENT, "Your code", "Code: 123456");
+			pending.setNextAttemptAt(LocalDateTime.now().plusDays(1));
+			return pending;
+		});
+
+		// Given up on just past failed-retention-hours (168 by default) ago
+		transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.markGivenUp(
+			message.getId(), LocalDateTime.now().minusHours(169), "Relay rejected the message"));
+
+		EmailOutboxMessage failed = emailOutboxRepository.findById(message.getId()).orElseThrow();
+		Assertions.assertEquals(EmailOutboxMessage.Status.FAILED, failed.getStatus());
+		Assertions.assertEquals("", failed.getBody(), "A failed email must not keep its code");
+		Assertions.assertNull(failed.getHtmlBody());
+		Assertions.assertEquals("Relay rejected the message", failed.getLastError());
+
+		ReflectionTestUtils.invokeMethod(emailOutboxDispatcher, "purge");
+
+		Assertions.assertTrue(emailOutboxRepository.findById(message.getId()).isEmpty(),
+			"Failed emails should be purged after the retention period");
+
+		System.out.println("✓ Failed email scrubbed and purged");
+	}
+
+	private String currentOtp() {
+		User user = userRepository.findByEmail(TEST_EMAIL)
+			.orElseThrow(() -> new AssertionError("Test user not found"));
+		return verificationTokenRepository.findAll().stream()
+			.filter(token -> token.getUser().getId().equals(user.getId()))
+			.filter(token -> token.getType() == VerificationToken.TokenType.EMAIL_VERIFICATION)
+			.map(VerificationToken::getOtpCode)
+			.findFirst()
+			.orElseThrow(() -> new AssertionError("Verification token not found"));
+	}
+
+	private List<EmailOutboxMessage> outboxMessages() {
+		return emailOutboxRepository.findAll().stream()
+			.filter(message -> message.getRecipient().equals(TEST_EMAIL))
+			.toList();
+	}
+
+	private void cleanUp() {
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(user -> {
+			verificationTokenRepository.deleteAll(verificationTokenRepository.findAll().stream()
+				.filter(token -> token.getUser().getId().equals(user.getId()))
+				.toList());
+			userRepository.delete(user);
+		});
+		emailOutboxRepository.deleteAll(emailOutboxRepository.findAll().stream()
+			.filter(message -> message.getRecipient().equals(TEST_EMAIL)
+				|| message.getRecipient().equals(THROTTLED_RECIPIENT)
+				|| message.getRecipient().equals(FAILED_RECIPIENT))
+			.toList());
+	}
+
+	private static void waitFor(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				Assertions.fail("Condition not met within " + timeout);
+			}
+			Thread.sleep(100);
+		}
+	}
+}
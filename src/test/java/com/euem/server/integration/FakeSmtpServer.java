@@ -0,0 +1,185 @@
+package com.euem.server.integration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server for tests. Accepts plain SMTP without auth or TLS, keeps every
+ * delivered message in memory and can be told to answer slowly or to reject messages.
+ */
+class FakeSmtpServer implements AutoCloseable {
+
+	private final ServerSocket serverSocket;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "fake-smtp");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final List<ReceivedMessage> messages = new CopyOnWriteArrayList<>();
+
+	private final AtomicInteger connectionCount = new AtomicInteger();
+
+	private final AtomicInteger rejectedCount = new AtomicInteger();
+
+	private volatile Duration responseDelay = Duration.ZERO;
+
+	private volatile boolean rejectMessages;
+
+	FakeSmtpServer() throws IOException {
+		serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		executor.execute(this::acceptLoop);
+	}
+
+	int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	List<ReceivedMessage> getMessages() {
+		return List.copyOf(messages);
+	}
+
+	List<ReceivedMessage> getMessagesTo(String recipient) {
+		return messages.stream()
+			.filter(message -> message.recipients().contains(recipient))
+			.toList();
+	}
+
+	int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	int getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	void setResponseDelay(Duration responseDelay) {
+		this.responseDelay = responseDelay;
+	}
+
+	void setRejectMessages(boolean rejectMessages) {
+		this.rejectMessages = rejectMessages;
+	}
+
+	void reset() {
+		messages.clear();
+		connectionCount.set(0);
+		rejectedCount.set(0);
+		responseDelay = Duration.ZERO;
+		rejectMessages = false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+
+	private void acceptLoop() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				connectionCount.incrementAndGet();
+				executor.execute(() -> handle(socket));
+			} catch (IOException e) {
+				// Closed
+			}
+		}
+	}
+
+	private void handle(Socket socket) {
+		try (socket;
+			 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			 OutputStream out = socket.getOutputStream()) {
+			reply(out, "220 fake-smtp ready");
+
+			String from = null;
+			List<String> recipients = new ArrayList<>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+				switch (command) {
+					case "EHLO", "HELO" -> reply(out, "250 fake-smtp");
+					case "MAIL" -> {
+						from = address(line);
+						recipients.clear();
+						reply(out, "250 OK");
+					}
+					case "RCPT" -> {
+						recipients.add(address(line));
+						reply(out, "250 OK");
+					}
+					case "DATA" -> {
+						reply(out, "354 End data with <CR><LF>.<CR><LF>");
+						StringBuilder data = new StringBuilder();
+						while ((line = in.readLine()) != null && !line.equals(".")) {
+							data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+						}
+						if (rejectMessages) {
+							rejectedCount.incrementAndGet();
+							reply(out, "451 Requested action aborted: local error in processing");
+						} else {
+							messages.add(new ReceivedMessage(from, List.copyOf(recipients), data.toString()));
+							reply(out, "250 OK queued");
+						}
+						recipients.clear();
+					}
+					case "RSET" -> {
+						from = null;
+						recipients.clear();
+						reply(out, "250 OK");
+					}
+					case "NOOP" -> reply(out, "250 OK");
+					case "QUIT" -> {
+						reply(out, "221 Bye");
+						return;
+					}
+					default -> reply(out, "502 Command not implemented");
+				}
+			}
+		} catch (IOException e) {
+			// Client went away
+		}
+	}
+
+	private void reply(OutputStream out, String response) throws IOException {
+		long delay = responseDelay.toMillis();
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted", e);
+			}
+		}
+		out.write((response + "\r\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+	private static String address(String line) {
+		int start = line.indexOf('<');
+		int end = line.indexOf('>', start + 1);
+		return start >= 0 && end > start ? line.substring(start + 1, end) : line.substring(line.indexOf(':') + 1).trim();
+	}
+
+	record ReceivedMessage(String from, List<String> recipients, String data) {
+
+		boolean contains(String text) {
+			return data.contains(text);
+		}
+	}
+}
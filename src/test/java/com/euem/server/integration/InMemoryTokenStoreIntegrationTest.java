@@ -0,0 +1,216 @@
+package com.euem.server.integration;
+
+import com.euem.server.entity.User;
+import com.euem.server.entity.VerificationToken;
+import com.euem.server.repository.EmailOutboxRepository;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.repository.VerificationTokenRepository;
+import com.euem.server.service.InMemoryVerificationTokenStore;
+import com.euem.server.service.VerificationTokenStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+	"app.otp.store=memory",
+	"app.otp.memory-store.tick-ms=50",
+	"app.mail.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(8)
+class InMemoryTokenStoreIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private VerificationTokenStore verificationTokenStore;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private VerificationTokenRepository verificationTokenRepository;
+
+	@Autowired
+	private EmailOutboxRepository emailOutboxRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private static final String TEST_EMAIL = "memory-store@euem.net";
+	private static final String TEST_PASSWORD = "TestPassword123!";
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("IN-MEMORY TOKEN STORE INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		cleanUp();
+	}
+
+	@AfterAll
+	void afterAll() {
+		cleanUp();
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ In-memory token store tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test the memory store is selected by configuration")
+	void testStoreSelected() {
+		Assertions.assertInstanceOf(InMemoryVerificationTokenStore.class, verificationTokenStore);
+
+		System.out.println("✓ app.otp.store=memory selects the in-memory store");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test register and verify without touching verification_tokens")
+	void testRegisterAndVerify() throws Exception {
+		String requestBody = String.format("""
+			{
+				"email": "%s",
+				"password": "%s",
+				"firstName": "Memory",
+				"lastName": "Store"
+			}
+			""", TEST_EMAIL, TEST_PASSWORD);
+
+		mockMvc.perform(post("/auth/register")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(requestBody))
+				.andExpect(status().isOk());
+
+		User user = userRepository.findByEmail(TEST_EMAIL)
+			.orElseThrow(() -> new RuntimeException("Test user not found"));
+		Assertions.assertTrue(verificationTokenRepository.findAll().stream()
+				.noneMatch(token -> token.getUser().getId().equals(user.getId())),
+			"No token row should be written with the memory store");
+
+		String otpCode = verificationTokenStore
+			.findActive(user, VerificationToken.TokenType.EMAIL_VERIFICATION, LocalDateTime.now())
+			.orElseThrow(() -> new RuntimeException("Verification code not found in store"))
+			.getOtpCode();
+
+		mockMvc.perform(post("/auth/verify-email")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(String.format("""
+					{
+						"email": "%s",
+						"otpCode": "%s"
+					}
+					""", TEST_EMAIL, otpCode)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.success").value(true));
+
+		Assertions.assertTrue(userRepository.findByEmail(TEST_EMAIL).orElseThrow().getIsVerified(),
+			"User should be verified");
+		Assertions.assertTrue(verificationTokenStore
+				.findActive(user, VerificationToken.TokenType.EMAIL_VERIFICATION, LocalDateTime.now()).isEmpty(),
+			"Used code should be removed from the store");
+
+		System.out.println("✓ Code issued and consumed in memory");
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Test expired codes are dropped by the timing wheel")
+	void testExpiry() throws Exception {
+		User user = userRepository.findByEmail(TEST_EMAIL)
+			.orElseThrow(() -> new RuntimeException("Test user not found"));
+		double expiredBefore = meterRegistry.get("euem.otp.store.expired").functionCounter().count();
+
+		verificationTokenStore.issue(user, VerificationToken.TokenType.PASSWORD_RESET, "123456",
+			LocalDateTime.now().plusNanos(100_000_000));
+		Assertions.assertTrue(verificationTokenStore
+			.findActive(user, VerificationToken.TokenType.PASSWORD_RESET, LocalDateTime.now()).isPresent());
+
+		Thread.sleep(500);
+
+		Assertions.assertEquals(expiredBefore + 1,
+			meterRegistry.get("euem.otp.store.expired").functionCounter().count(),
+			"The wheel should have dropped the expired code");
+		Assertions.assertTrue(verificationTokenStore
+			.findActive(user, VerificationToken.TokenType.PASSWORD_RESET, LocalDateTime.now().minusMinutes(1)).isEmpty(),
+			"Expired code should be gone from the store");
+
+		System.out.println("✓ Expired code removed without a scan");
+	}
+
+	@Test
+	@Order(4)
+	@DisplayName("Test changes inside a transaction are applied only on commit")
+	void testAppliedOnCommit() {
+		User user = userRepository.findByEmail(TEST_EMAIL)
+			.orElseThrow(() -> new RuntimeException("Test user not found"));
+		VerificationToken.TokenType type = VerificationToken.TokenType.PASSWORD_RESET;
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			verificationTokenStore.issue(user, type, "111111", LocalDateTime.now().plusMinutes(5));
+			status.setRollbackOnly();
+		});
+		Assertions.assertTrue(verificationTokenStore.findActive(user, type, LocalDateTime.now()).isEmpty(),
+			"A rolled back issue should leave no code behind");
+
+		transactionTemplate.executeWithoutResult(status -> {
+			verificationTokenStore.issue(user, type, "222222", LocalDateTime.now().plusMinutes(5));
+			Assertions.assertTrue(verificationTokenStore.findActive(user, type, LocalDateTime.now()).isEmpty(),
+				"The code should not be visible before commit");
+		});
+		VerificationToken issued = verificationTokenStore.findActive(user, type, LocalDateTime.now())
+			.orElseThrow(() -> new AssertionError("Committed code not found in store"));
+		Assertions.assertEquals("222222", issued.getOtpCode());
+
+		LocalDateTime now = LocalDateTime.now();
+		transactionTemplate.executeWithoutResult(status -> {
+			Assertions.assertTrue(verificationTokenStore.markResent(issued, now, issued.getLastSentAt()));
+			Assertions.assertFalse(verificationTokenStore.markResent(issued, now, issued.getLastSentAt()),
+				"A resend claim should be visible to other callers before commit");
+			verificationTokenStore.consume(issued);
+			status.setRollbackOnly();
+		});
+		Assertions.assertTrue(verificationTokenStore.findActive(user, type, LocalDateTime.now()).isPresent(),
+			"A rolled back consume should keep the code");
+		Assertions.assertTrue(verificationTokenStore.markResent(issued, now, issued.getLastSentAt()),
+			"A rolled back resend claim should be given back");
+
+		verificationTokenStore.deleteAllForUser(user.getId());
+		Assertions.assertTrue(verificationTokenStore.findActive(user, type, LocalDateTime.now()).isEmpty());
+
+		System.out.println("✓ Store changes follow the transaction outcome");
+	}
+
+	private void cleanUp() {
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(userRepository::delete);
+		emailOutboxRepository.deleteAll(emailOutboxRepository.findAll().stream()
+			.filter(message -> TEST_EMAIL.equals(message.getRecipient()))
+			.toList());
+	}
+}
@@ -0,0 +1,230 @@
+package com.euem.server.integration;
+
+import com.euem.server.config.DataInitializer;
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import com.euem.server.repository.RoleRepository;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.repository.VerificationTokenRepository;
+import com.euem.server.security.PrincipalCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+	"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(5)
+class LoginQueryCountIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private VerificationTokenRepository verificationTokenRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private PrincipalCache principalCache;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataInitializer dataInitializer;
+
+	private static final String TEST_EMAIL = "login-query-count@euem.net";
+	private static final String REGISTER_EMAIL = "register-query-count@euem.net";
+	private static final String TEST_PASSWORD = "TestPassword123!";
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("LOGIN QUERY COUNT INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(userRepository::delete);
+		deleteRegisteredUser();
+
+		Role userRole = roleRepository.findByName(Role.RoleName.USER)
+			.orElseThrow(() -> new RuntimeException("USER role not found"));
+
+		User user = new User();
+		user.setEmail(TEST_EMAIL);
+		user.setPassword(passwordEncoder.encode(TEST_PASSWORD));
+		user.setFirstName("Login");
+		user.setLastName("Count");
+		user.setIsVerified(true);
+		user.setIsEnabled(true);
+		user.addRole(userRole);
+		userRepository.save(user);
+	}
+
+	@AfterAll
+	void afterAll() {
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(userRepository::delete);
+		deleteRegisteredUser();
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Login query count tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test login loads the user with a single statement on a cold cache")
+	void testLoginStatementCount() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		principalCache.clear();
+		statistics.clear();
+
+		login();
+
+		System.out.println("Queries executed: " + statistics.getQueryExecutionCount());
+		System.out.println("Collection fetches: " + statistics.getCollectionFetchCount());
+		System.out.println("Statements prepared: " + statistics.getPrepareStatementCount());
+
+		Assertions.assertEquals(1, statistics.getQueryExecutionCount(), "Login should load the user with one query");
+		Assertions.assertEquals(0, statistics.getCollectionFetchCount(), "Roles should come from role_mask, not user_roles");
+		Assertions.assertEquals(2, statistics.getPrepareStatementCount(),
+			"Login should run one user select plus the refresh token insert");
+
+		System.out.println("✓ Login used a single user select");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test login reads the committed user even when the second-level cache is warm")
+	void testLoginBypassesSecondLevelCache() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		userRepository.findByEmail(TEST_EMAIL).orElseThrow();
+		principalCache.clear();
+		statistics.clear();
+
+		login();
+
+		System.out.println("Natural id cache hits: " + statistics.getNaturalIdCacheHitCount());
+		System.out.println("Statements prepared: " + statistics.getPrepareStatementCount());
+
+		// The cache is node-local; a password change made on another node must not be answered from it
+		Assertions.assertEquals(0, statistics.getNaturalIdCacheHitCount(), "Login should not resolve email from the cache");
+		Assertions.assertEquals(2, statistics.getPrepareStatementCount(),
+			"Login should run one user select plus the refresh token insert");
+
+		System.out.println("✓ Login read the user from the database");
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Test role_mask is backfilled from user_roles")
+	void testRoleMaskBackfill() throws Exception {
+		User user = userRepository.findByEmail(TEST_EMAIL)
+			.orElseThrow(() -> new RuntimeException("Test user not found"));
+		jdbcTemplate.update("UPDATE users SET role_mask = 0 WHERE id = ?", user.getId());
+
+		dataInitializer.run();
+
+		User migrated = userRepository.findByEmail(TEST_EMAIL)
+			.orElseThrow(() -> new RuntimeException("Test user not found"));
+		Assertions.assertEquals(Role.RoleName.USER.bit(), migrated.getRoleMask(),
+			"role_mask should be rebuilt from the user_roles rows");
+		Assertions.assertEquals(Set.of(Role.RoleName.USER), migrated.getRoleNames());
+		Assertions.assertEquals(Set.of("USER"), Role.RoleName.namesOf(migrated.getRoleMask()));
+
+		System.out.println("✓ role_mask backfilled: " + migrated.getRoleMask());
+	}
+
+	@Test
+	@Order(4)
+	@DisplayName("Test registration takes roles from the registry")
+	void testRegistrationSkipsRoleLookup() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		String requestBody = String.format("""
+			{
+				"email": "%s",
+				"password": "%s",
+				"firstName": "Register",
+				"lastName": "Count"
+			}
+			""", REGISTER_EMAIL, TEST_PASSWORD);
+
+		mockMvc.perform(post("/auth/register")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(requestBody))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.roles[0]").value("USER"));
+
+		Assertions.assertEquals(0, statistics.getEntityStatistics(Role.class.getName()).getLoadCount(),
+			"Registration should not load roles");
+		for (String query : statistics.getQueries()) {
+			Assertions.assertFalse(query.contains("Role"), "Registration should not query roles: " + query);
+		}
+
+		User registered = userRepository.findByEmail(REGISTER_EMAIL)
+			.orElseThrow(() -> new RuntimeException("Registered user not found"));
+		Assertions.assertEquals(Role.RoleName.USER.bit(), registered.getRoleMask());
+
+		System.out.println("✓ Registration ran " + statistics.getQueryExecutionCount() + " queries, none on roles");
+	}
+
+	private void login() throws Exception {
+		String requestBody = String.format("""
+			{
+				"email": "%s",
+				"password": "%s"
+			}
+			""", TEST_EMAIL, TEST_PASSWORD);
+
+		mockMvc.perform(post("/auth/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(requestBody))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.accessToken").exists())
+				.andExpect(jsonPath("$.user.email").value(TEST_EMAIL))
+				.andExpect(jsonPath("$.user.roles[0]").value("USER"));
+	}
+
+	private void deleteRegisteredUser() {
+		userRepository.findByEmail(REGISTER_EMAIL).ifPresent(user -> {
+			verificationTokenRepository.deleteAll(verificationTokenRepository.findAll().stream()
+				.filter(token -> token.getUser().getId().equals(user.getId()))
+				.toList());
+			userRepository.delete(user);
+		});
+	}
+}
@@ -0,0 +1,184 @@
+package com.euem.server.integration;
+
+import com.euem.server.mail.RelayHealth;
+import com.euem.server.mail.SmtpRelayRouter;
+import com.euem.server.repository.EmailOutboxRepository;
+import com.euem.server.service.EmailOutboxService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(7)
+class MailRelayFailoverIntegrationTest {
+
+	private static final FakeSmtpServer relayA = startSmtpServer();
+	private static final FakeSmtpServer relayB = startSmtpServer();
+
+	private static final String RECIPIENT = "relay-test@euem.net";
+
+	@Autowired
+	private EmailOutboxService emailOutboxService;
+
+	@Autowired
+	private EmailOutboxRepository emailOutboxRepository;
+
+	@Autowired
+	private SmtpRelayRouter relayRouter;
+
+	@DynamicPropertySource
+	static void mailProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.mail.host", () -> "localhost");
+		registry.add("spring.mail.port", relayA::getPort);
+		registry.add("spring.mail.username", () -> "");
+		registry.add("spring.mail.password", () -> "");
+		registerRelay(registry, 0, "relay-a", relayA);
+		registerRelay(registry, 1, "relay-b", relayB);
+		registry.add("app.mail.health.failure-threshold", () -> "2");
+		registry.add("app.mail.health.open-duration", () -> "1s");
+		registry.add("app.mail.outbox.poll-interval-ms", () -> "200");
+		registry.add("app.mail.outbox.initial-backoff-ms", () -> "200");
+		registry.add("app.mail.scheduler.default-limit.capacity", () -> "1000");
+	}
+
+	private static void registerRelay(DynamicPropertyRegistry registry, int index, String name, FakeSmtpServer server) {
+		String prefix = "app.mail.relays[" + index + "].";
+		registry.add(prefix + "name", () -> name);
+		registry.add(prefix + "host", () -> "localhost");
+		registry.add(prefix + "port", server::getPort);
+		registry.add(prefix + "properties.mail.smtp.auth", () -> "false");
+		registry.add(prefix + "properties.mail.smtp.starttls.enable", () -> "false");
+	}
+
+	private static FakeSmtpServer startSmtpServer() {
+		try {
+			return new FakeSmtpServer();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("MAIL RELAY FAILOVER INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		cleanUp();
+	}
+
+	@AfterAll
+	void afterAll() throws IOException {
+		cleanUp();
+		relayA.close();
+		relayB.close();
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Mail relay failover tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test a slow relay receives less traffic than a fast one")
+	void testSlowRelayGetsLessTraffic() throws Exception {
+		relayA.reset();
+		relayB.reset();
+		relayB.setResponseDelay(Duration.ofMillis(100));
+
+		int count = 20;
+		sendOneByOne(count);
+
+		int fast = relayA.getMessagesTo(RECIPIENT).size();
+		int slow = relayB.getMessagesTo(RECIPIENT).size();
+		System.out.println("Fast relay: " + fast + ", slow relay: " + slow);
+
+		Assertions.assertEquals(count, fast + slow, "Every message should be delivered");
+		Assertions.assertTrue(fast > slow * 3, "Traffic should shift to the faster relay");
+
+		relayB.setResponseDelay(Duration.ZERO);
+		System.out.println("✓ Slow relay deprioritized");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test a failing relay is ejected and brought back by a probe")
+	void testFailingRelayEjectedAndRestored() throws Exception {
+		relayA.reset();
+		relayB.reset();
+		relayA.setRejectMessages(true);
+
+		int count = 8;
+		sendOneByOne(count);
+
+		System.out.println("Rejected by relay A: " + relayA.getRejectedCount());
+		Assertions.assertEquals(count, relayB.getMessagesTo(RECIPIENT).size(),
+			"Messages refused by the failing relay should fail over to the healthy one");
+		Assertions.assertTrue(relayA.getRejectedCount() <= 2,
+			"The failing relay should be ejected after the failure threshold");
+		Assertions.assertEquals(RelayHealth.State.OPEN, relayA().health().getState());
+		System.out.println("✓ Failing relay ejected");
+
+		relayA.setRejectMessages(false);
+		Thread.sleep(1200);
+
+		// After open-duration one message is let through as a probe; success puts the relay back in rotation
+		for (int i = 0; i < 20 && relayA.getMessagesTo(RECIPIENT).isEmpty(); i++) {
+			sendOneByOne(1);
+		}
+		Assertions.assertFalse(relayA.getMessagesTo(RECIPIENT).isEmpty(), "Recovered relay should receive the probe");
+		Assertions.assertEquals(RelayHealth.State.CLOSED, relayA().health().getState());
+
+		System.out.println("✓ Recovered relay restored through a half-open probe");
+	}
+
+	private SmtpRelayRouter.Relay relayA() {
+		return relayRouter.getRelays().stream()
+			.filter(relay -> relay.name().equals("relay-a"))
+			.findFirst()
+			.orElseThrow();
+	}
+
+	// One message per dispatch round so each round is routed on its own
+	private void sendOneByOne(int count) throws InterruptedException {
+		for (int i = 0; i < count; i++) {
+			int expected = delivered() + 1;
+			emailOutboxService.enqueue(RECIPIENT, "Relay test " + i, "Relay message " + i);
+			waitFor(() -> delivered() >= expected, Duration.ofSeconds(15));
+		}
+	}
+
+	private int delivered() {
+		return relayA.getMessagesTo(RECIPIENT).size() + relayB.getMessagesTo(RECIPIENT).size();
+	}
+
+	private void cleanUp() {
+		emailOutboxRepository.deleteAll(emailOutboxRepository.findAll().stream()
+			.filter(message -> message.getRecipient().equals(RECIPIENT))
+			.toList());
+	}
+
+	private static void waitFor(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				Assertions.fail("Condition not met within " + timeout);
+			}
+			Thread.sleep(50);
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package com.euem.server.integration;
+
+import com.euem.server.dto.request.ChangePasswordRequest;
+import com.euem.server.dto.request.RegisterRequest;
+import com.euem.server.dto.request.UpdateProfileRequest;
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import com.euem.server.repository.EmailOutboxRepository;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.repository.VerificationTokenRepository;
+import com.euem.server.security.CustomUserDetailsService;
+import com.euem.server.security.CustomUserPrincipal;
+import com.euem.server.security.PrincipalCache;
+import com.euem.server.service.RoleRegistry;
+import com.euem.server.service.UserService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+// recheck-seconds=0 stands in for a node whose copy of the security version has gone stale
+@SpringBootTest(properties = {
+	"app.mail.outbox.enabled=false",
+	"app.jwt.security-version.recheck-seconds=0"
+})
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(16)
+class PrincipalCacheIntegrationTest {
+
+	@Autowired
+	private CustomUserDetailsService customUserDetailsService;
+
+	@Autowired
+	private PrincipalCache principalCache;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private VerificationTokenRepository verificationTokenRepository;
+
+	@Autowired
+	private EmailOutboxRepository emailOutboxRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private static final String TEST_EMAIL = "principal-cache@euem.net";
+	private static final String TEST_PASSWORD = "TestPassword123!";
+	private static final String NEW_PASSWORD = "NewPassword456!";
+
+	private UUID userId;
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("PRINCIPAL CACHE INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		cleanUp();
+		User user = new User();
+		user.setEmail(TEST_EMAIL);
+		user.setPassword(passwordEncoder.encode(TEST_PASSWORD));
+		user.setFirstName("Principal");
+		user.setLastName("Cache");
+		user.setIsVerified(true);
+		user.setIsEnabled(true);
+		user.addRole(roleRegistry.get(Role.RoleName.USER));
+		userId = userRepository.save(user).getId();
+		principalCache.clear();
+	}
+
+	@AfterAll
+	void afterAll() {
+		cleanUp();
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Principal cache tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test repeated lookups are served from the cache")
+	void testCached() {
+		CustomUserPrincipal first = load();
+		CustomUserPrincipal second = load();
+
+		Assertions.assertSame(first, second);
+
+		System.out.println("✓ Principal served from the cache");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test a profile update evicts the principal")
+	void testProfileUpdateEvicts() {
+		CustomUserPrincipal before = load();
+		UpdateProfileRequest request = new UpdateProfileRequest();
+		request.setFirstName("Renamed");
+		userService.updateProfile(userId, request);
+
+		Assertions.assertNotSame(before, load(), "The principal should be reloaded after an update");
+
+		System.out.println("✓ Profile update evicted the principal");
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Test a password change serves the new hash and security version")
+	void testPasswordChangeEvicts() {
+		load();
+		ChangePasswordRequest request = new ChangePasswordRequest();
+		request.setCurrentPassword(TEST_PASSWORD);
+		request.setNewPassword(NEW_PASSWORD);
+		userService.changePassword(userId, request);
+
+		CustomUserPrincipal principal = load();
+		Assertions.assertTrue(passwordEncoder.matches(NEW_PASSWORD, principal.getPassword()));
+		Assertions.assertEquals(1, principal.getUser().getSecurityVersion());
+
+		System.out.println("✓ Password change visible to the next login");
+	}
+
+	@Test
+	@Order(4)
+	@DisplayName("Test a deleted account is not served as enabled")
+	void testDeleteAccountEvicts() {
+		Assertions.assertTrue(load().isEnabled());
+
+		userService.deleteAccount(userId);
+
+		Assertions.assertFalse(load().isEnabled(), "A disabled account must not be served from the cache");
+
+		System.out.println("✓ Soft delete visible to the next login");
+	}
+
+	@Test
+	@Order(5)
+	@DisplayName("Test a reactivated account is served as enabled")
+	void testReactivationEvicts() {
+		Assertions.assertFalse(load().isEnabled());
+
+		RegisterRequest request = new RegisterRequest();
+		request.setEmail(TEST_EMAIL);
+		request.setPassword(TEST_PASSWORD);
+		request.setFirstName("Principal");
+		request.setLastName("Cache");
+		userService.register(request);
+
+		CustomUserPrincipal principal = load();
+		Assertions.assertTrue(principal.isEnabled());
+		Assertions.assertTrue(passwordEncoder.matches(TEST_PASSWORD, principal.getPassword()));
+
+		System.out.println("✓ Reactivation visible to the next login");
+	}
+
+	@Test
+	@Order(6)
+	@DisplayName("Test a password change committed on another node is not served from the cache")
+	void testRemotePasswordChangeReloads() {
+		CustomUserPrincipal before = load();
+		// Warms this node's second-level cache with the row as it is before the change
+		userRepository.findByEmail(TEST_EMAIL).orElseThrow();
+
+		// Another node's commit: neither the principal cache nor the second-level cache on this node is evicted
+		jdbcTemplate.update("UPDATE users SET password = ?, security_version = security_version + 1 WHERE id = ?",
+			passwordEncoder.encode(NEW_PASSWORD), userId);
+
+		CustomUserPrincipal after = load();
+		Assertions.assertNotSame(before, after);
+		Assertions.assertTrue(passwordEncoder.matches(NEW_PASSWORD, after.getPassword()),
+			"The old password must stop working once the change is committed");
+		Assertions.assertEquals(before.getUser().getSecurityVersion() + 1, after.getUser().getSecurityVersion());
+
+		System.out.println("✓ Remote password change visible to the next login");
+	}
+
+	@Test
+	@Order(7)
+	@DisplayName("Test an account deleted on another node is not served as enabled")
+	void testRemoteDeleteReloads() {
+		Assertions.assertTrue(load().isEnabled());
+		userRepository.findByEmail(TEST_EMAIL).orElseThrow();
+
+		jdbcTemplate.update("UPDATE users SET is_enabled = false, security_version = security_version + 1 WHERE id = ?",
+			userId);
+
+		Assertions.assertFalse(load().isEnabled(), "A remotely disabled account must not be served from the cache");
+
+		System.out.println("✓ Remote soft delete visible to the next login");
+	}
+
+	private CustomUserPrincipal load() {
+		return (CustomUserPrincipal) customUserDetailsService.loadUserByUsername(TEST_EMAIL);
+	}
+
+	private void cleanUp() {
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(user -> {
+			verificationTokenRepository.deleteAll(verificationTokenRepository.findAll().stream()
+				.filter(token -> token.getUser().getId().equals(user.getId()))
+				.toList());
+			userRepository.delete(user);
+		});
+		emailOutboxRepository.deleteAll(emailOutboxRepository.findAll().stream()
+			.filter(message -> TEST_EMAIL.equals(message.getRecipient()))
+			.toList());
+	}
+}
@@ -0,0 +1,151 @@
+package com.euem.server.integration;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Runs against the real server so Tomcat resolves X-Forwarded-For the way it does behind a proxy
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+	"server.forward-headers-strategy=native",
+	"app.rate-limit.endpoints.login.ip-capacity=2",
+	"app.rate-limit.endpoints.login.email-capacity=2",
+	"app.mail.outbox.enabled=false"
+})
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(17)
+class RateLimitIntegrationTest {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("RATE LIMIT INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+	}
+
+	@AfterAll
+	void afterAll() {
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Rate limit tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test clients behind the same proxy are limited separately")
+	void testForwardedClientsLimitedSeparately() {
+		Assertions.assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, login("203.0.113.10", "proxy-1@euem.net").getStatusCode());
+		Assertions.assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, login("203.0.113.10", "proxy-2@euem.net").getStatusCode());
+		ResponseEntity<String> limited = login("203.0.113.10", "proxy-3@euem.net");
+		Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getStatusCode());
+		Assertions.assertNotNull(limited.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+		Assertions.assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, login("203.0.113.11", "proxy-4@euem.net").getStatusCode(),
+			"Another client behind the same proxy should have its own bucket");
+
+		System.out.println("✓ Forwarded client addresses get separate buckets");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test chunked bodies without a Content-Length still count against the email limit")
+	void testChunkedBodyEmailLimited() throws Exception {
+		String body = "{\"email\":\"chunked@euem.net\",\"password\":\"WrongPassword123!\"}";
+
+		// A new client address every time, so only the email bucket can refuse
+		Assertions.assertNotEquals(429, chunkedLogin("203.0.113.20", body).statusCode());
+		Assertions.assertNotEquals(429, chunkedLogin("203.0.113.21", body).statusCode());
+		HttpResponse<String> limited = chunkedLogin("203.0.113.22", body);
+
+		Assertions.assertEquals(429, limited.statusCode(), "The third chunked login for one email should be limited");
+		Assertions.assertTrue(limited.headers().firstValue(HttpHeaders.RETRY_AFTER).isPresent());
+
+		System.out.println("✓ Chunked bodies are limited per email");
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Test bodies padded past the inspection limit are rejected instead of skipping the email limit")
+	void testPaddedBodyRejected() throws Exception {
+		String body = "{\"email\":\"padded@euem.net\",\"password\":\"WrongPassword123!\",\"padding\":\""
+			+ "x".repeat(32 * 1024) + "\"}";
+
+		Assertions.assertEquals(413, chunkedLogin("203.0.113.30", body).statusCode());
+		Assertions.assertEquals(HttpStatus.PAYLOAD_TOO_LARGE,
+			restTemplate.postForEntity("/auth/login", new HttpEntity<>(body, jsonHeaders("203.0.113.31")), String.class)
+				.getStatusCode());
+
+		System.out.println("✓ Oversized bodies rejected with 413");
+	}
+
+	@Test
+	@Order(4)
+	@DisplayName("Test a different email in the query string does not move the body email out of its limit")
+	void testQueryEmailDoesNotBypassBodyEmail() {
+		Map<String, String> body = Map.of("email", "mismatch@euem.net", "password", "WrongPassword123!");
+
+		for (int i = 0; i < 2; i++) {
+			Assertions.assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, restTemplate.postForEntity(
+				"/auth/login?email=decoy-" + i + "@euem.net", new HttpEntity<>(body, jsonHeaders("203.0.113.4" + i)), String.class)
+				.getStatusCode());
+		}
+		ResponseEntity<String> limited = restTemplate.postForEntity(
+			"/auth/login?email=decoy-2@euem.net", new HttpEntity<>(body, jsonHeaders("203.0.113.42")), String.class);
+
+		Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getStatusCode(),
+			"The body email is the one authenticated, so it must be the one limited");
+
+		System.out.println("✓ Query email cannot replace the body email's bucket");
+	}
+
+	private ResponseEntity<String> login(String clientIp, String email) {
+		Map<String, String> body = Map.of("email", email, "password", "WrongPassword123!");
+		return restTemplate.postForEntity("/auth/login", new HttpEntity<>(body, jsonHeaders(clientIp)), String.class);
+	}
+
+	// A body publisher of unknown length makes the client send Transfer-Encoding: chunked
+	private HttpResponse<String> chunkedLogin(String clientIp, String body) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/login"))
+			.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+			.header("X-Forwarded-For", clientIp)
+			.POST(HttpRequest.BodyPublishers.ofInputStream(
+				() -> new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))))
+			.build();
+		return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static HttpHeaders jsonHeaders(String clientIp) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		headers.set("X-Forwarded-For", clientIp);
+		return headers;
+	}
+}
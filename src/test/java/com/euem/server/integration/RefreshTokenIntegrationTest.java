@@ -0,0 +1,232 @@
+package com.euem.server.integration;
+
+import com.euem.server.entity.RefreshToken;
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import com.euem.server.repository.RefreshTokenRepository;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.service.RefreshTokenPurger;
+import com.euem.server.service.RoleRegistry;
+import com.euem.server.util.TokenHasher;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+	"app.jwt.refresh-purge.enabled=false",
+	"app.jwt.refresh-purge.batch-size=2",
+	"app.jwt.refresh-purge.batch-pause-ms=0",
+	"app.mail.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(18)
+class RefreshTokenIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RefreshTokenRepository refreshTokenRepository;
+
+	@Autowired
+	private RefreshTokenPurger refreshTokenPurger;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private static final String TEST_EMAIL = "refresh-token@euem.net";
+	private static final String TEST_PASSWORD = "TestPassword123!";
+
+	private UUID userId;
+
+	private String firstToken;
+
+	private String rotatedToken;
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("REFRESH TOKEN INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(userRepository::delete);
+
+		User user = new User();
+		user.setEmail(TEST_EMAIL);
+		user.setPassword(passwordEncoder.encode(TEST_PASSWORD));
+		user.setFirstName("Refresh");
+		user.setLastName("Token");
+		user.setIsVerified(true);
+		user.setIsEnabled(true);
+		user.addRole(roleRegistry.get(Role.RoleName.USER));
+		userId = userRepository.save(user).getId();
+	}
+
+	@AfterAll
+	void afterAll() {
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(userRepository::delete);
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Refresh token tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test a refresh token is rotated for a new pair")
+	void testRotation() throws Exception {
+		firstToken = login();
+
+		rotatedToken = refresh(firstToken)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.accessToken").exists())
+			.andExpect(jsonPath("$.user.email").value(TEST_EMAIL))
+			.andReturn().getResponse().getContentAsString();
+		rotatedToken = objectMapper.readTree(rotatedToken).get("refreshToken").asText();
+
+		Assertions.assertNotEquals(firstToken, rotatedToken);
+		RefreshToken used = stored(firstToken);
+		Assertions.assertTrue(used.getRevoked(), "The presented token should be marked as rotated");
+		Assertions.assertTrue(used.getExpiryTime().isBefore(LocalDateTime.now().plusDays(8)),
+			"A rotated token should only be kept for the reuse-detection window");
+		Assertions.assertEquals(used.getFamilyId(), stored(rotatedToken).getFamilyId());
+
+		System.out.println("✓ Refresh token rotated within its family");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test reusing a rotated token revokes the whole family")
+	void testReuseRevokesFamily() throws Exception {
+		String otherLogin = login();
+
+		refresh(firstToken)
+			.andExpect(status().isUnauthorized())
+			.andExpect(jsonPath("$.message").value("Refresh token has already been used"));
+		refresh(rotatedToken).andExpect(status().isUnauthorized());
+
+		Assertions.assertTrue(refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex(rotatedToken)).isEmpty(),
+			"Every token of the family should be deleted");
+		refresh(otherLogin).andExpect(status().isOk());
+
+		System.out.println("✓ Reuse revoked the family and left other logins alone");
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Test the purge removes expired and rotated tokens past the reuse window")
+	void testPurge() throws Exception {
+		jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id = ?", userId);
+		String live = login();
+		String used = login();
+		refresh(used).andExpect(status().isOk());
+		String expired = login();
+
+		// The reuse window for the rotated token and the lifetime of the other one have run out
+		jdbcTemplate.update("UPDATE refresh_tokens SET expiry_time = ? WHERE token_hash IN (?, ?)",
+			LocalDateTime.now().minusMinutes(1), TokenHasher.sha256Hex(used), TokenHasher.sha256Hex(expired));
+
+		long runsBefore = meterRegistry.get("euem.refresh.purge.duration").timer().count();
+		int purged = refreshTokenPurger.purgeExpired();
+
+		Assertions.assertTrue(purged >= 2, "Both tokens should be purged, purged " + purged);
+		Assertions.assertTrue(refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex(used)).isEmpty());
+		Assertions.assertTrue(refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex(expired)).isEmpty());
+		Assertions.assertTrue(refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex(live)).isPresent());
+		Assertions.assertEquals(runsBefore + 1, meterRegistry.get("euem.refresh.purge.duration").timer().count());
+
+		refresh(used).andExpect(status().isUnauthorized());
+		refresh(live).andExpect(status().isOk());
+
+		System.out.println("✓ Purged " + purged + " refresh tokens, live token kept");
+	}
+
+	@Test
+	@Order(4)
+	@DisplayName("Test a refresh token stops working once the account is disabled on another node")
+	void testRemotelyDisabledAccount() throws Exception {
+		String token = login();
+		String next = objectMapper.readTree(refresh(token)
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString())
+			.get("refreshToken").asText();
+
+		// Committed without this node's entity caches seeing it
+		jdbcTemplate.update("UPDATE users SET is_enabled = false, security_version = security_version + 1 WHERE id = ?",
+			userId);
+
+		refresh(next)
+			.andExpect(status().isUnauthorized())
+			.andExpect(jsonPath("$.message").value("Account is disabled"));
+
+		System.out.println("✓ Disabled account cannot refresh");
+	}
+
+	private String login() throws Exception {
+		String response = mockMvc.perform(post("/auth/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(String.format("""
+					{
+						"email": "%s",
+						"password": "%s"
+					}
+					""", TEST_EMAIL, TEST_PASSWORD)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		JsonNode json = objectMapper.readTree(response);
+		return json.get("refreshToken").asText();
+	}
+
+	private ResultActions refresh(String refreshToken) throws Exception {
+		return mockMvc.perform(post("/auth/refresh")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(String.format("""
+					{
+						"refreshToken": "%s"
+					}
+					""", refreshToken)));
+	}
+
+	private RefreshToken stored(String rawToken) {
+		return refreshTokenRepository.findByTokenHash(TokenHasher.sha256Hex(rawToken))
+			.orElseThrow(() -> new AssertionError("Refresh token not stored"));
+	}
+}
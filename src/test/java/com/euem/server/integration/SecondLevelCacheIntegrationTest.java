@@ -0,0 +1,247 @@
+package com.euem.server.integration;
+
+import com.euem.server.dto.request.ChangePasswordRequest;
+import com.euem.server.dto.request.RegisterRequest;
+import com.euem.server.dto.request.UpdateProfileRequest;
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import com.euem.server.repository.EmailOutboxRepository;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.repository.VerificationTokenRepository;
+import com.euem.server.service.RoleRegistry;
+import com.euem.server.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@SpringBootTest(properties = {
+	"app.mail.outbox.enabled=false",
+	"app.cache.users.max-entries=4",
+	"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(12)
+class SecondLevelCacheIntegrationTest {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private VerificationTokenRepository verificationTokenRepository;
+
+	@Autowired
+	private EmailOutboxRepository emailOutboxRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private static final String TEST_EMAIL = "l2-cache@euem.net";
+	private static final String CHANGED_EMAIL = "l2-cache-changed@euem.net";
+	private static final String FILLER_PREFIX = "l2-cache-filler-";
+	private static final int FILLER_USERS = 6;
+	private static final String TEST_PASSWORD = "TestPassword123!";
+	private static final String NEW_PASSWORD = "NewPassword456!";
+
+	private UUID userId;
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("SECOND-LEVEL CACHE INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		cleanUp();
+		userId = createUser(TEST_EMAIL).getId();
+	}
+
+	@AfterAll
+	void afterAll() {
+		cleanUp();
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Second-level cache tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test repeated user lookups are served from the cache")
+	void testProfileReadsHitCache() {
+		Statistics statistics = statistics();
+		userRepository.findByIdAndIsEnabledTrue(userId).orElseThrow();
+		statistics.clear();
+
+		userRepository.findByIdAndIsEnabledTrue(userId).orElseThrow();
+		userRepository.findByEmail(TEST_EMAIL).orElseThrow();
+
+		Assertions.assertTrue(statistics.getSecondLevelCacheHitCount() >= 2, "User should come from the cache");
+		Assertions.assertTrue(statistics.getNaturalIdCacheHitCount() >= 1, "Email should resolve from the cache");
+		Assertions.assertEquals(0, statistics.getPrepareStatementCount(), "Warm reads should not reach the database");
+
+		System.out.println("✓ " + statistics.getSecondLevelCacheHitCount() + " cache hits, no statements");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test a profile update is visible by id and by email")
+	void testProfileUpdateNotStale() {
+		UpdateProfileRequest request = new UpdateProfileRequest();
+		request.setFirstName("Updated");
+		userService.updateProfile(userId, request);
+
+		Assertions.assertEquals("Updated", userRepository.findByIdAndIsEnabledTrue(userId).orElseThrow().getFirstName());
+		Assertions.assertEquals("Updated", userRepository.findByEmail(TEST_EMAIL).orElseThrow().getFirstName());
+
+		System.out.println("✓ Profile update visible through the cache");
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Test a password change is visible to the next login lookup")
+	void testPasswordChangeNotStale() {
+		ChangePasswordRequest request = new ChangePasswordRequest();
+		request.setCurrentPassword(TEST_PASSWORD);
+		request.setNewPassword(NEW_PASSWORD);
+		userService.changePassword(userId, request);
+
+		User user = userRepository.findByEmail(TEST_EMAIL).orElseThrow();
+		Assertions.assertTrue(passwordEncoder.matches(NEW_PASSWORD, user.getPassword()), "New hash should be served");
+		Assertions.assertEquals(1, user.getSecurityVersion(), "Bumped security version should be served");
+
+		System.out.println("✓ Password change visible through the cache");
+	}
+
+	@Test
+	@Order(4)
+	@DisplayName("Test a deleted account is not served as enabled")
+	void testDeleteAccountNotStale() {
+		userService.deleteAccount(userId);
+
+		Assertions.assertTrue(userRepository.findByIdAndIsEnabledTrue(userId).isEmpty(), "Disabled user should not be found");
+		User user = userRepository.findByEmail(TEST_EMAIL).orElseThrow();
+		Assertions.assertFalse(user.getIsEnabled(), "Disabled flag should be served");
+		Assertions.assertEquals(2, user.getSecurityVersion(), "Bumped security version should be served");
+
+		System.out.println("✓ Soft delete visible through the cache");
+	}
+
+	@Test
+	@Order(5)
+	@DisplayName("Test reactivating a deleted account through registration")
+	void testReactivationNotStale() {
+		RegisterRequest request = new RegisterRequest();
+		request.setEmail(TEST_EMAIL);
+		request.setPassword(TEST_PASSWORD);
+		request.setFirstName("Reactivated");
+		request.setLastName("Cache");
+		Statistics statistics = statistics();
+		statistics.clear();
+		userService.register(request);
+		Assertions.assertEquals(0, statistics.getCollectionFetchCount(), "Reactivation should not load user_roles");
+
+		User user = userRepository.findByIdAndIsEnabledTrue(userId).orElseThrow();
+		Assertions.assertTrue(user.getIsEnabled());
+		Assertions.assertTrue(user.getRoleNames().contains(Role.RoleName.USER));
+		Assertions.assertEquals("Reactivated", user.getFirstName());
+		Assertions.assertEquals(3, userRepository.findByEmail(TEST_EMAIL).orElseThrow().getSecurityVersion());
+
+		System.out.println("✓ Reactivation visible through the cache");
+	}
+
+	@Test
+	@Order(6)
+	@DisplayName("Test an email change moves the cached email lookup")
+	void testEmailChangeNotStale() {
+		userRepository.findByEmail(TEST_EMAIL).orElseThrow();
+
+		transactionTemplate.executeWithoutResult(status ->
+			userRepository.findById(userId).orElseThrow().setEmail(CHANGED_EMAIL));
+
+		Assertions.assertTrue(userRepository.findByEmail(TEST_EMAIL).isEmpty(), "Old email should no longer resolve");
+		Assertions.assertEquals(userId, userRepository.findByEmail(CHANGED_EMAIL).orElseThrow().getId());
+
+		System.out.println("✓ Email change moved the natural id resolution");
+	}
+
+	@Test
+	@Order(7)
+	@DisplayName("Test regions are bounded and report capacity and evictions")
+	void testCapacityAndEvictions() {
+		for (int i = 0; i < FILLER_USERS; i++) {
+			createUser(FILLER_PREFIX + i + "@euem.net");
+		}
+
+		double capacity = meterRegistry.get("euem.cache.capacity").tag("cache", User.CACHE_REGION).gauge().value();
+		double evictions = meterRegistry.get("cache.evictions").tag("cache", User.CACHE_REGION).functionCounter().count();
+
+		Assertions.assertEquals(4.0, capacity);
+		Assertions.assertTrue(evictions > 0, "Users beyond capacity should be evicted");
+
+		System.out.println("✓ users region capacity " + capacity + ", evictions " + evictions);
+	}
+
+	private User createUser(String email) {
+		User user = new User();
+		user.setEmail(email);
+		user.setPassword(passwordEncoder.encode(TEST_PASSWORD));
+		user.setFirstName("Cache");
+		user.setLastName("Test");
+		user.setIsVerified(true);
+		user.setIsEnabled(true);
+		user.addRole(roleRegistry.get(Role.RoleName.USER));
+		return userRepository.save(user);
+	}
+
+	private Statistics statistics() {
+		return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	private void cleanUp() {
+		List<String> emails = new ArrayList<>(List.of(TEST_EMAIL, CHANGED_EMAIL));
+		for (int i = 0; i < FILLER_USERS; i++) {
+			emails.add(FILLER_PREFIX + i + "@euem.net");
+		}
+		for (String email : emails) {
+			userRepository.findByEmail(email).ifPresent(user -> {
+				verificationTokenRepository.deleteAll(verificationTokenRepository.findAll().stream()
+					.filter(token -> token.getUser().getId().equals(user.getId()))
+					.toList());
+				userRepository.delete(user);
+			});
+		}
+		emailOutboxRepository.deleteAll(emailOutboxRepository.findAll().stream()
+			.filter(message -> TEST_EMAIL.equals(message.getRecipient()))
+			.toList());
+	}
+}
@@ -0,0 +1,141 @@
+package com.euem.server.integration;
+
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.security.CustomUserPrincipal;
+import com.euem.server.security.JwtTokenProvider;
+import com.euem.server.service.RoleRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// recheck-seconds=0 makes every request read users, as a node would once its entry is stale or it restarted
+@SpringBootTest(properties = {
+	"app.jwt.security-version.recheck-seconds=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(14)
+class SecurityVersionIntegrationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private JwtTokenProvider jwtTokenProvider;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private static final String TEST_EMAIL = "security-version@euem.net";
+
+	private User user;
+
+	private String token;
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("SECURITY VERSION INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(userRepository::delete);
+
+		user = new User();
+		user.setEmail(TEST_EMAIL);
+		user.setPassword("unused");
+		user.setFirstName("Security");
+		user.setLastName("Version");
+		user.setIsVerified(true);
+		user.setIsEnabled(true);
+		user.addRole(roleRegistry.get(Role.RoleName.USER));
+		user = userRepository.save(user);
+		token = jwtTokenProvider.generateToken(CustomUserPrincipal.create(user));
+	}
+
+	@AfterAll
+	void afterAll() {
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(userRepository::delete);
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Security version tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test a current token is accepted")
+	void testCurrentTokenAccepted() throws Exception {
+		mockMvc.perform(get("/users/profile").header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk());
+
+		System.out.println("✓ Current token accepted");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test a version bumped outside this node revokes the token")
+	void testVersionBumpedElsewhereRejected() throws Exception {
+		jdbcTemplate.update("UPDATE users SET security_version = security_version + 1 WHERE id = ?", user.getId());
+
+		mockMvc.perform(get("/users/profile").header("Authorization", "Bearer " + token))
+				.andExpect(status().isUnauthorized());
+
+		System.out.println("✓ Token with an old security version rejected");
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Test a token for a disabled account is rejected")
+	void testDisabledAccountRejected() throws Exception {
+		jdbcTemplate.update("UPDATE users SET security_version = 0, is_enabled = false WHERE id = ?", user.getId());
+
+		mockMvc.perform(get("/users/profile").header("Authorization", "Bearer " + token))
+				.andExpect(status().isUnauthorized());
+
+		jdbcTemplate.update("UPDATE users SET is_enabled = true WHERE id = ?", user.getId());
+		mockMvc.perform(get("/users/profile").header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk());
+
+		System.out.println("✓ Disabled account rejected, accepted again once re-enabled");
+	}
+
+	@Test
+	@Order(4)
+	@DisplayName("Test a token for an unknown user is rejected")
+	void testUnknownUserRejected() throws Exception {
+		User ghost = new User();
+		ghost.setId(UUID.randomUUID());
+		ghost.setEmail("ghost-" + TEST_EMAIL);
+		ghost.setPassword("unused");
+		ghost.setIsEnabled(true);
+		ghost.setRoleMask(Role.RoleName.USER.bit());
+		String ghostToken = jwtTokenProvider.generateToken(CustomUserPrincipal.create(ghost));
+
+		mockMvc.perform(get("/users/profile").header("Authorization", "Bearer " + ghostToken))
+				.andExpect(status().isUnauthorized());
+
+		System.out.println("✓ Token for an unknown user rejected");
+	}
+}
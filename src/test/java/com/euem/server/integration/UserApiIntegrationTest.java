@@ -38,6 +38,9 @@ class UserApiIntegrationTest {
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 	
+	@Autowired
+	private JwtTokenProvider jwtTokenProvider;
+	
 	private static final String TEST_EMAIL = "no-reply@euem.net";
 	private static final String TEST_PASSWORD = "TestPassword123!";
 	private static User testUser;
@@ -70,7 +73,7 @@ class UserApiIntegrationTest {
 		testUser.setLastName("Test");
 		testUser.setIsVerified(true);
 		testUser.setIsEnabled(true);
-		testUser.getRoles().add(userRole);
+		testUser.addRole(userRole);
 		testUser = userRepository.save(testUser);
 		
 		// Generate JWT token
@@ -176,10 +179,17 @@ class UserApiIntegrationTest {
 		User user = userRepository.findByEmail(TEST_EMAIL)
 			.orElseThrow(() -> new RuntimeException("Test user not found"));
 		Assertions.assertTrue(passwordEncoder.matches("NewPassword123!", user.getPassword()));
+		Assertions.assertEquals(1, user.getSecurityVersion(), "Password change should bump the security version");
+		
+		// Access tokens issued before the change are revoked
+		mockMvc.perform(get("/users/profile")
+				.header("Authorization", "Bearer " + authToken))
+				.andExpect(status().isUnauthorized());
 		
 		// Change password back for other tests
 		user.setPassword(passwordEncoder.encode(TEST_PASSWORD));
-		userRepository.save(user);
+		user = userRepository.save(user);
+		authToken = jwtTokenProvider.generateToken(CustomUserPrincipal.create(user));
 		
 		System.out.println("✓ Change password successful");
 	}
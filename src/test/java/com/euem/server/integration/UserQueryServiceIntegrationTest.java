@@ -0,0 +1,117 @@
+package com.euem.server.integration;
+
+import com.euem.server.dto.response.UserResponse;
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import com.euem.server.exception.UserNotFoundException;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.service.RoleRegistry;
+import com.euem.server.service.UserQueryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Set;
+import java.util.UUID;
+
+@SpringBootTest(properties = {
+	"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(13)
+class UserQueryServiceIntegrationTest {
+
+	@Autowired
+	private UserQueryService userQueryService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private static final String TEST_EMAIL = "profile-query@euem.net";
+
+	private UUID userId;
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("USER QUERY SERVICE INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(userRepository::delete);
+
+		User user = new User();
+		user.setEmail(TEST_EMAIL);
+		user.setPassword("unused");
+		user.setFirstName("Profile");
+		user.setLastName("Query");
+		user.setIsVerified(true);
+		user.setIsEnabled(true);
+		user.addRole(roleRegistry.get(Role.RoleName.USER));
+		user.addRole(roleRegistry.get(Role.RoleName.ADMIN));
+		userId = userRepository.save(user).getId();
+	}
+
+	@AfterAll
+	void afterAll() {
+		userRepository.findByEmail(TEST_EMAIL).ifPresent(userRepository::delete);
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ User query service tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test profile is read as a projection without loading the entity")
+	void testProfileProjection() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		UserResponse profile = userQueryService.getUserProfile(userId);
+
+		Assertions.assertEquals(userId, profile.getId());
+		Assertions.assertEquals(TEST_EMAIL, profile.getEmail());
+		Assertions.assertEquals("Profile", profile.getFirstName());
+		Assertions.assertEquals("Query", profile.getLastName());
+		Assertions.assertTrue(profile.getIsVerified());
+		Assertions.assertTrue(profile.getIsEnabled());
+		Assertions.assertNotNull(profile.getCreatedAt());
+		Assertions.assertNotNull(profile.getUpdatedAt());
+		Assertions.assertEquals(Set.of("USER", "ADMIN"), profile.getRoles());
+
+		Assertions.assertEquals(0, statistics.getEntityLoadCount(), "No entity should be loaded");
+		Assertions.assertEquals(0, statistics.getCollectionFetchCount(), "Roles should come from role_mask");
+		Assertions.assertEquals(1, statistics.getPrepareStatementCount(), "Profile should be a single select");
+		Assertions.assertEquals(0, statistics.getFlushCount(), "A read-only transaction should not flush");
+
+		System.out.println("✓ Profile read with one statement and no entity loads");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test a disabled user has no profile")
+	void testDisabledUserNotFound() {
+		User user = userRepository.findById(userId).orElseThrow();
+		user.setIsEnabled(false);
+		userRepository.save(user);
+
+		Assertions.assertThrows(UserNotFoundException.class, () -> userQueryService.getUserProfile(userId));
+
+		System.out.println("✓ Disabled user rejected");
+	}
+}
@@ -0,0 +1,121 @@
+package com.euem.server.integration;
+
+import com.euem.server.entity.EmailOutboxMessage;
+import com.euem.server.repository.EmailOutboxRepository;
+import com.euem.server.util.UuidGenerator;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SpringBootTest(properties = {
+	"app.mail.outbox.enabled=false"
+})
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(11)
+class UuidGenerationIntegrationTest {
+
+	@Autowired
+	private EmailOutboxRepository emailOutboxRepository;
+
+	private static final String RECIPIENT = "uuid-test@euem.net";
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("UUID GENERATION INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+	}
+
+	@AfterAll
+	void afterAll() {
+		emailOutboxRepository.deleteAll(emailOutboxRepository.findAll().stream()
+			.filter(message -> RECIPIENT.equals(message.getRecipient()))
+			.toList());
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ UUID generation tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test entities get increasing version 7 ids")
+	void testEntityIdsAreTimeOrdered() {
+		List<UUID> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			EmailOutboxMessage message = new EmailOutboxMessage();
+			message.setRecipient(RECIPIENT);
+			message.setRecipientDomain("euem.net");
+			message.setSubject("UUID test");
+			message.setBody("UUID test " + i);
+			message.setNextAttemptAt(LocalDateTime.now().plusDays(1));
+			ids.add(emailOutboxRepository.save(message).getId());
+		}
+
+		for (int i = 0; i < ids.size(); i++) {
+			Assertions.assertEquals(7, ids.get(i).version(), "Id should be a version 7 UUID");
+			Assertions.assertEquals(2, ids.get(i).variant(), "Id should use the RFC variant");
+			if (i > 0) {
+				Assertions.assertTrue(ids.get(i).toString().compareTo(ids.get(i - 1).toString()) > 0,
+					"Ids should sort in insertion order");
+			}
+		}
+
+		System.out.println("✓ Ids in insertion order: " + ids.get(0) + " .. " + ids.get(ids.size() - 1));
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test concurrent generation stays unique and increasing per thread")
+	void testConcurrentGeneration() throws Exception {
+		int threads = 8;
+		int perThread = 20_000;
+		Set<UUID> all = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(() -> {
+					Set<UUID> local = new HashSet<>();
+					String previous = "";
+					for (int i = 0; i < perThread; i++) {
+						UUID id = UuidGenerator.v7();
+						if (id.toString().compareTo(previous) <= 0) {
+							return false;
+						}
+						previous = id.toString();
+						local.add(id);
+					}
+					all.addAll(local);
+					return true;
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				Assertions.assertTrue(result.get(), "Ids from one thread should be strictly increasing");
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		Assertions.assertEquals(threads * perThread, all.size(), "All generated ids should be unique");
+
+		System.out.println("✓ " + all.size() + " unique ids across " + threads + " threads");
+	}
+}
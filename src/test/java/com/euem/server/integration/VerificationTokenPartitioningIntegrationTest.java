@@ -0,0 +1,240 @@
+package com.euem.server.integration;
+
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import com.euem.server.entity.VerificationToken;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.service.RoleRegistry;
+import com.euem.server.service.VerificationTokenPartitionManager;
+import com.euem.server.service.VerificationTokenStore;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Every pooled connection works in a throwaway schema, so the one-way conversion never touches the real table
+@SpringBootTest(properties = {
+	"app.otp.partitioning.enabled=true",
+	"app.otp.partitioning.premake-days=3",
+	"app.mail.outbox.enabled=false",
+	"spring.jpa.hibernate.ddl-auto=update",
+	"spring.datasource.hikari.connection-init-sql=CREATE SCHEMA IF NOT EXISTS " +
+		VerificationTokenPartitioningIntegrationTest.SCHEMA + "; SET search_path TO " +
+		VerificationTokenPartitioningIntegrationTest.SCHEMA
+})
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(15)
+class VerificationTokenPartitioningIntegrationTest {
+
+	static final String SCHEMA = "euem_partition_test";
+
+	private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+	@Autowired
+	private VerificationTokenPartitionManager partitionManager;
+
+	@Autowired
+	private VerificationTokenStore verificationTokenStore;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRegistry roleRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private User user;
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("VERIFICATION TOKEN PARTITIONING INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		user = new User();
+		user.setEmail("partitioning@euem.net");
+		user.setPassword("unused");
+		user.setFirstName("Partition");
+		user.setLastName("Test");
+		user.setIsVerified(false);
+		user.setIsEnabled(true);
+		user.addRole(roleRegistry.get(Role.RoleName.USER));
+		user = userRepository.save(user);
+	}
+
+	@AfterAll
+	void afterAll() {
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Verification token partitioning tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test the table is partitioned at startup with premade partitions")
+	void testConvertedAtStartup() {
+		Assertions.assertEquals(SCHEMA, jdbcTemplate.queryForObject("SELECT current_schema()", String.class));
+		Assertions.assertTrue(isPartitioned(), "verification_tokens should be partitioned");
+
+		List<String> partitions = partitionManager.listPartitions();
+		LocalDate today = LocalDate.now();
+		for (int day = 0; day <= 3; day++) {
+			Assertions.assertTrue(partitions.contains(partition(today.plusDays(day))), "Missing partition for day " + day);
+		}
+
+		System.out.println("✓ Partitioned at startup: " + partitions);
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test a plain table with rows is converted, keeping live rows only")
+	void testConvertPlainTable() {
+		jdbcTemplate.execute("DROP TABLE verification_tokens CASCADE");
+		jdbcTemplate.execute("CREATE TABLE verification_tokens (" +
+			"id uuid PRIMARY KEY, " +
+			"user_id uuid NOT NULL CONSTRAINT fk_verification_tokens_user REFERENCES users(id), " +
+			"otp_code varchar(6) NOT NULL, " +
+			"expiry_time timestamp NOT NULL, " +
+			"last_sent_at timestamp, " +
+			"type verification_token_type NOT NULL, " +
+			"CONSTRAINT uk_verification_tokens_user_type UNIQUE (user_id, type))");
+		LocalDateTime now = LocalDateTime.now();
+		insertToken(VerificationToken.TokenType.EMAIL_VERIFICATION, now.plusMinutes(10));
+		insertToken(VerificationToken.TokenType.PASSWORD_RESET, now.minusDays(1));
+		insertToken(VerificationToken.TokenType.EMAIL_CHANGE, now.plusDays(10));
+
+		partitionManager.ensurePartitioned();
+
+		Assertions.assertTrue(isPartitioned());
+		Assertions.assertEquals(2, count(), "Only live rows should be copied");
+		Assertions.assertTrue(partitionManager.listPartitions().contains(partition(now.plusDays(10).toLocalDate())),
+			"Partitions should reach the latest live expiry");
+		Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+			"SELECT count(*) FROM pg_constraint WHERE conrelid = to_regclass('verification_tokens') " +
+			"AND conname = 'fk_verification_tokens_user'", Integer.class), "Foreign key should be kept");
+		Assertions.assertEquals("UNIQUE (user_id, type, expiry_time)", jdbcTemplate.queryForObject(
+			"SELECT pg_get_constraintdef(oid) FROM pg_constraint WHERE conrelid = to_regclass('verification_tokens') " +
+			"AND conname = 'uk_verification_tokens_user_type'", String.class),
+			"The (user_id, type) constraint should be redeclared with the partition key");
+
+		partitionManager.ensurePartitioned();
+		Assertions.assertEquals(2, count(), "A second run should be a no-op");
+
+		System.out.println("✓ Plain table converted with " + count() + " live rows");
+	}
+
+	@Test
+	@Order(3)
+	@DisplayName("Test concurrent issues leave a single live code")
+	void testConcurrentIssueKeepsOneCode() throws Exception {
+		int threads = 4;
+		int rounds = 20;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int round = 0; round < rounds; round++) {
+				CountDownLatch start = new CountDownLatch(1);
+				List<Future<?>> results = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					String otp = String.format("%06d", round * threads + t);
+					results.add(executor.submit(() -> {
+						start.await();
+						return transactionTemplate.execute(status -> verificationTokenStore.issue(user,
+							VerificationToken.TokenType.EMAIL_VERIFICATION, otp, LocalDateTime.now().plusMinutes(15)));
+					}));
+				}
+				start.countDown();
+				for (Future<?> result : results) {
+					result.get();
+				}
+				Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+					"SELECT count(*) FROM verification_tokens WHERE user_id = ? AND type = 'EMAIL_VERIFICATION'",
+					Integer.class, user.getId()), "Round " + round + " should leave one code");
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		Assertions.assertTrue(verificationTokenStore.findActiveByEmail(user.getEmail(),
+			VerificationToken.TokenType.EMAIL_VERIFICATION, LocalDateTime.now()).isPresent());
+
+		System.out.println("✓ " + rounds + " rounds of " + threads + " concurrent issues left one code each");
+	}
+
+	@Test
+	@Order(4)
+	@DisplayName("Test lookups pick the newest code when duplicates exist")
+	void testDuplicatesTolerated() {
+		LocalDateTime now = LocalDateTime.now();
+		jdbcTemplate.update("DELETE FROM verification_tokens WHERE user_id = ?", user.getId());
+		insertToken(VerificationToken.TokenType.EMAIL_VERIFICATION, now.plusMinutes(5));
+		UUID newest = insertToken(VerificationToken.TokenType.EMAIL_VERIFICATION, now.plusMinutes(15));
+
+		VerificationToken found = verificationTokenStore.findActiveByEmail(user.getEmail(),
+			VerificationToken.TokenType.EMAIL_VERIFICATION, now).orElseThrow();
+		Assertions.assertEquals(newest, found.getId());
+
+		System.out.println("✓ Newest of two codes returned");
+	}
+
+	@Test
+	@Order(5)
+	@DisplayName("Test maintenance drops fully expired partitions")
+	void testExpiredPartitionDropped() {
+		LocalDate old = LocalDate.now().minusDays(3);
+		jdbcTemplate.execute("CREATE TABLE " + partition(old) + " PARTITION OF verification_tokens " +
+			"FOR VALUES FROM ('" + old + "') TO ('" + old.plusDays(1) + "')");
+
+		partitionManager.maintain();
+
+		Assertions.assertFalse(partitionManager.listPartitions().contains(partition(old)));
+		Assertions.assertTrue(partitionManager.listPartitions().contains(partition(LocalDate.now())));
+
+		System.out.println("✓ Expired partition " + partition(old) + " dropped");
+	}
+
+	private UUID insertToken(VerificationToken.TokenType type, LocalDateTime expiry) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO verification_tokens (id, user_id, otp_code, expiry_time, type) " +
+			"VALUES (?, ?, '123456', ?, CAST(? AS verification_token_type))", id, user.getId(), expiry, type.name());
+		return id;
+	}
+
+	private boolean isPartitioned() {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+			"SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('verification_tokens'))",
+			Boolean.class));
+	}
+
+	private int count() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM verification_tokens", Integer.class);
+	}
+
+	private static String partition(LocalDate day) {
+		return "verification_tokens_p" + day.format(SUFFIX);
+	}
+}
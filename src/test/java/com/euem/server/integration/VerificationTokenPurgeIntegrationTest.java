@@ -0,0 +1,148 @@
+package com.euem.server.integration;
+
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import com.euem.server.entity.VerificationToken;
+import com.euem.server.repository.RoleRepository;
+import com.euem.server.repository.UserRepository;
+import com.euem.server.repository.VerificationTokenRepository;
+import com.euem.server.service.VerificationTokenPurger;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@SpringBootTest(properties = {
+	"app.otp.purge.enabled=false",
+	"app.otp.purge.batch-size=2",
+	"app.otp.purge.max-batches-per-run=2",
+	"app.otp.purge.batch-pause-ms=0"
+})
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(9)
+class VerificationTokenPurgeIntegrationTest {
+
+	@Autowired
+	private VerificationTokenPurger purger;
+
+	@Autowired
+	private VerificationTokenRepository verificationTokenRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoleRepository roleRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private static final String[] TEST_EMAILS = {"purge-a@euem.net", "purge-b@euem.net"};
+
+	private final List<UUID> expiredIds = new ArrayList<>();
+
+	private UUID liveId;
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("VERIFICATION TOKEN PURGE INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+
+		cleanUp();
+
+		Role userRole = roleRepository.findByName(Role.RoleName.USER)
+			.orElseThrow(() -> new RuntimeException("USER role not found"));
+		for (String email : TEST_EMAILS) {
+			User user = new User();
+			user.setEmail(email);
+			user.setPassword("unused");
+			user.setFirstName("Purge");
+			user.setLastName("Test");
+			user.setIsVerified(false);
+			user.setIsEnabled(true);
+			user.addRole(userRole);
+			user = userRepository.save(user);
+
+			for (VerificationToken.TokenType type : VerificationToken.TokenType.values()) {
+				boolean live = email.equals(TEST_EMAILS[0]) && type == VerificationToken.TokenType.EMAIL_CHANGE;
+				VerificationToken token = new VerificationToken();
+				token.setUser(user);
+				token.setOtpCode("123456");
+				token.setType(type);
+				token.setExpiryTime(live ? LocalDateTime.now().plusMinutes(15) : LocalDateTime.now().minusMinutes(5));
+				token = verificationTokenRepository.save(token);
+				if (live) {
+					liveId = token.getId();
+				} else {
+					expiredIds.add(token.getId());
+				}
+			}
+		}
+	}
+
+	@AfterAll
+	void afterAll() {
+		cleanUp();
+
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Verification token purge tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test a run stops after max-batches-per-run and reports the backlog")
+	void testRunIsBounded() {
+		int purged = purger.purgeExpired();
+
+		Assertions.assertEquals(4, purged, "Two batches of two rows should be deleted");
+		Assertions.assertTrue(meterRegistry.get("euem.otp.purge.backlog").gauge().value() >= 1,
+			"Rows left behind should show up as backlog");
+
+		System.out.println("✓ Run bounded at " + purged + " rows");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test further runs drain the backlog and keep live tokens")
+	void testBacklogDrained() {
+		double purgedBefore = meterRegistry.get("euem.otp.purge.purged").counter().count();
+		int runs = 0;
+		while (purger.purgeExpired() > 0) {
+			runs++;
+			Assertions.assertTrue(runs < 1000, "Purge should terminate");
+		}
+
+		Assertions.assertEquals(0.0, meterRegistry.get("euem.otp.purge.backlog").gauge().value());
+		Assertions.assertTrue(meterRegistry.get("euem.otp.purge.purged").counter().count() > purgedBefore);
+		Assertions.assertTrue(verificationTokenRepository.findAllById(expiredIds).isEmpty(),
+			"All expired tokens should be gone");
+		Assertions.assertTrue(verificationTokenRepository.existsById(liveId), "Live token should be kept");
+		Assertions.assertTrue(meterRegistry.get("euem.otp.purge.duration").timer().count() >= 2);
+
+		System.out.println("✓ Backlog drained after " + (runs + 1) + " more runs");
+	}
+
+	private void cleanUp() {
+		for (String email : TEST_EMAILS) {
+			userRepository.findByEmail(email).ifPresent(user -> {
+				verificationTokenRepository.deleteAll(verificationTokenRepository.findAll().stream()
+					.filter(token -> token.getUser().getId().equals(user.getId()))
+					.toList());
+				userRepository.delete(user);
+			});
+		}
+	}
+}
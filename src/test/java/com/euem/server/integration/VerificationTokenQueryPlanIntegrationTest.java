@@ -0,0 +1,89 @@
+package com.euem.server.integration;
+
+import com.euem.server.entity.VerificationToken;
+import com.euem.server.repository.VerificationTokenRepository;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+@Order(10)
+class VerificationTokenQueryPlanIntegrationTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeAll
+	void beforeAll() {
+		System.out.println("\n" + "=".repeat(80));
+		System.out.println("VERIFICATION TOKEN QUERY PLAN INTEGRATION TESTS");
+		System.out.println("=".repeat(80));
+	}
+
+	@AfterAll
+	void afterAll() {
+		System.out.println("=".repeat(80));
+		System.out.println("✓ Verification token query plan tests completed");
+		System.out.println("=".repeat(80) + "\n");
+	}
+
+	@Test
+	@Order(1)
+	@DisplayName("Test deleting by user and type uses both index columns")
+	void testDeleteByUserAndTypePlan() {
+		List<String> plan = explain(VerificationTokenRepository.DELETE_BY_USER_AND_TYPE_SQL, Map.of(
+			"userId", UUID.randomUUID(),
+			"type", VerificationToken.TokenType.EMAIL_CHANGE.name()));
+
+		Assertions.assertTrue(plan.stream().noneMatch(line -> line.contains("Seq Scan")),
+			"Delete should not scan the table:\n" + String.join("\n", plan));
+		Assertions.assertTrue(plan.stream().anyMatch(line -> line.contains("Index Cond") && line.contains("type")),
+			"type should be part of the index condition, not a filter:\n" + String.join("\n", plan));
+
+		System.out.println("✓ (user_id, type) used as index condition");
+	}
+
+	@Test
+	@Order(2)
+	@DisplayName("Test deleting all tokens of a user is one indexed statement")
+	void testDeleteAllByUserPlan() {
+		List<String> plan = explain(VerificationTokenRepository.DELETE_ALL_BY_USER_SQL, Map.of(
+			"userId", UUID.randomUUID()));
+
+		Assertions.assertTrue(plan.stream().noneMatch(line -> line.contains("Seq Scan")),
+			"Delete should not scan the table:\n" + String.join("\n", plan));
+		Assertions.assertTrue(plan.stream().anyMatch(line -> line.contains("Index Cond") && line.contains("user_id")),
+			"user_id should be an index condition:\n" + String.join("\n", plan));
+
+		System.out.println("✓ user_id used as index condition");
+	}
+
+	// The test table is tiny, so sequential scans are priced out to see whether an index is usable at all
+	private List<String> explain(String sql, Map<String, ?> params) {
+		return new TransactionTemplate(transactionManager).execute(status -> {
+			jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+			List<String> plan = new NamedParameterJdbcTemplate(jdbcTemplate)
+				.queryForList("EXPLAIN " + sql, params, String.class);
+			plan.forEach(line -> System.out.println("  " + line));
+			return plan;
+		});
+	}
+}
@@ -0,0 +1,126 @@
+package com.euem.server.mail;
+
+import com.euem.server.config.MailSchedulerProperties;
+import com.euem.server.entity.EmailOutboxMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+class EmailSchedulerTest {
+
+	private static final String DOMAIN = "scheduler.test";
+
+	private final AtomicLong nanoTime = new AtomicLong();
+
+	private EmailScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		MailSchedulerProperties properties = new MailSchedulerProperties();
+		// One NORMAL message per period, two in total
+		properties.getDomains().put(DOMAIN, new MailSchedulerProperties.DomainLimit(2, Duration.ofSeconds(2)));
+		properties.setNormalShare(0.5);
+
+		scheduler = new EmailScheduler();
+		ReflectionTestUtils.setField(scheduler, "properties", properties);
+		ReflectionTestUtils.setField(scheduler, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(scheduler, "nanoTime", (LongSupplier) nanoTime::get);
+		ReflectionTestUtils.invokeMethod(scheduler, "init");
+	}
+
+	@Test
+	@DisplayName("Test deferred messages from successive batches queue up instead of restarting")
+	void testDeferralsQueueAcrossBatches() {
+		LocalDateTime now = LocalDateTime.now();
+		EmailScheduler.Admission first = scheduler.admit(normal(3), now);
+		EmailScheduler.Admission second = scheduler.admit(normal(2), now);
+
+		Assertions.assertEquals(1, first.admitted().size());
+		Assertions.assertEquals(0, second.admitted().size(), "New mail should wait behind the deferred mail");
+
+		List<Long> delays = Stream.concat(first.deferred().values().stream(), second.deferred().values().stream())
+			.map(dueAt -> Duration.between(now, dueAt).toMillis())
+			.sorted()
+			.toList();
+		Assertions.assertEquals(4, delays.size());
+		Assertions.assertEquals(List.of(2000L, 4000L, 6000L, 8000L), delays,
+			"Deferred mail should be due one refill interval apart");
+	}
+
+	@Test
+	@DisplayName("Test urgent mail does not wait behind deferred normal mail")
+	void testUrgentSkipsNormalQueue() {
+		LocalDateTime now = LocalDateTime.now();
+		scheduler.admit(normal(3), now);
+
+		EmailOutboxMessage urgent = message(EmailOutboxMessage.Priority.URGENT, 0);
+		Assertions.assertEquals(List.of(urgent), scheduler.admit(List.of(urgent), now).admitted());
+	}
+
+	@Test
+	@DisplayName("Test an OTP is not delayed behind normal mail waiting on the shared bucket")
+	void testUrgentNotQueuedBehindNormalBacklog() {
+		MailSchedulerProperties properties = (MailSchedulerProperties) ReflectionTestUtils.getField(scheduler, "properties");
+		// Ten per period, one refill a second; NORMAL may use five
+		properties.getDomains().put(DOMAIN, new MailSchedulerProperties.DomainLimit(10, Duration.ofSeconds(10)));
+		LocalDateTime now = LocalDateTime.now();
+
+		Assertions.assertEquals(10, scheduler.admit(messages(EmailOutboxMessage.Priority.URGENT, 10), now).admitted().size());
+		// Within NORMAL's share but refused by the drained shared bucket
+		EmailScheduler.Admission backlog = scheduler.admit(messages(EmailOutboxMessage.Priority.NORMAL, 5), now);
+		Assertions.assertEquals(5, backlog.deferred().size());
+
+		EmailOutboxMessage otp = message(EmailOutboxMessage.Priority.URGENT, 0);
+		LocalDateTime dueAt = scheduler.admit(List.of(otp), now).deferred().get(otp);
+
+		Assertions.assertEquals(1000, Duration.between(now, dueAt).toMillis(),
+			"The OTP should take the next refill instead of queueing behind the normal backlog");
+	}
+
+	@Test
+	@DisplayName("Test a message returning from a deferral is not sent to the back of the queue")
+	void testQueuedMessageKeepsItsPlace() {
+		scheduler.admit(normal(3), LocalDateTime.now());
+
+		// One token has refilled; the returning message takes it, a newcomer still queues
+		advance(Duration.ofMillis(2100));
+		EmailOutboxMessage newcomer = message(EmailOutboxMessage.Priority.NORMAL, 0);
+		EmailOutboxMessage returning = message(EmailOutboxMessage.Priority.NORMAL, 1);
+		EmailScheduler.Admission admission = scheduler.admit(List.of(newcomer, returning), LocalDateTime.now());
+
+		Assertions.assertEquals(List.of(returning), admission.admitted());
+		Assertions.assertTrue(admission.deferred().containsKey(newcomer));
+	}
+
+	private void advance(Duration duration) {
+		nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(duration.toMillis()));
+	}
+
+	private static List<EmailOutboxMessage> normal(int count) {
+		return messages(EmailOutboxMessage.Priority.NORMAL, count);
+	}
+
+	private static List<EmailOutboxMessage> messages(EmailOutboxMessage.Priority priority, int count) {
+		return IntStream.range(0, count)
+			.mapToObj(i -> message(priority, 0))
+			.toList();
+	}
+
+	private static EmailOutboxMessage message(EmailOutboxMessage.Priority priority, int deferrals) {
+		EmailOutboxMessage message = new EmailOutboxMessage();
+		message.setRecipient("someone@" + DOMAIN);
+		message.setRecipientDomain(DOMAIN);
+		message.setPriority(priority);
+		message.setDeferrals(deferrals);
+		return message;
+	}
+}
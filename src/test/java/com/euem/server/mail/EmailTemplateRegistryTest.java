@@ -0,0 +1,105 @@
+package com.euem.server.mail;
+
+import com.euem.server.controller.AdminController;
+import com.euem.server.dto.response.MessageResponse;
+import com.euem.server.entity.VerificationToken;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+class EmailTemplateRegistryTest {
+
+	private static final Map<String, String> VALUES = Map.of("code", "123456", "expiryMinutes", "15", "oldEmail", "old@euem.net");
+
+	@TempDir
+	Path directory;
+
+	private EmailTemplateRegistry registry;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		for (String name : new String[] {"email-verification", "password-reset", "email-change"}) {
+			write(name, "en", "subject", name + " en");
+			write(name, "en", "txt", "en {{code}}");
+			write(name, "en", "html", "<p>en {{code}}</p>");
+		}
+		registry = new EmailTemplateRegistry();
+		ReflectionTestUtils.setField(registry, "location", "file:" + directory.toAbsolutePath() + "/");
+		ReflectionTestUtils.setField(registry, "defaultLocale", "en");
+		registry.reload();
+	}
+
+	@Test
+	@DisplayName("Test lookups fall back from the locale tag to its language and then to the default")
+	void testLocaleFallback() throws IOException {
+		write("password-reset", "fr", "subject", "fr");
+		write("password-reset", "fr", "txt", "fr {{code}}");
+		write("password-reset", "fr-CA", "subject", "fr-CA");
+		write("password-reset", "fr-CA", "txt", "fr-CA {{code}}");
+		Assertions.assertEquals(5, registry.reload());
+
+		Assertions.assertEquals("fr-CA 123456", render(Locale.CANADA_FRENCH).text());
+		Assertions.assertEquals("fr 123456", render(Locale.FRANCE).text());
+		Assertions.assertEquals("en 123456", render(Locale.GERMAN).text());
+		Assertions.assertEquals("en 123456", render(null).text());
+		Assertions.assertNull(render(Locale.FRANCE).html(), "The fr set has no HTML part");
+		Assertions.assertEquals("<p>en 123456</p>", render(Locale.ENGLISH).html());
+	}
+
+	@Test
+	@DisplayName("Test a reload with a broken template keeps the previous set")
+	void testBrokenReloadKeepsPrevious() throws IOException {
+		write("password-reset", "en", "txt", "changed {{code");
+
+		Assertions.assertThrows(IllegalArgumentException.class, registry::reload);
+		Assertions.assertEquals("en 123456", render(Locale.ENGLISH).text());
+	}
+
+	@Test
+	@DisplayName("Test a reload missing a default-locale template keeps the previous set")
+	void testIncompleteReloadKeepsPrevious() throws IOException {
+		Files.delete(directory.resolve("email-change.en.subject"));
+
+		Assertions.assertThrows(IllegalStateException.class, registry::reload);
+		Assertions.assertEquals("email-change en",
+			registry.render(VerificationToken.TokenType.EMAIL_CHANGE, Locale.ENGLISH, VALUES).subject());
+	}
+
+	@Test
+	@DisplayName("Test the admin reload endpoint reports a broken template as a bad request")
+	void testAdminReloadFailure() throws IOException {
+		AdminController controller = new AdminController();
+		ReflectionTestUtils.setField(controller, "emailTemplateRegistry", registry);
+
+		ResponseEntity<MessageResponse> ok = controller.reloadEmailTemplates();
+		Assertions.assertEquals(HttpStatus.OK, ok.getStatusCode());
+		Assertions.assertTrue(ok.getBody().isSuccess());
+		Assertions.assertEquals("Reloaded 3 email templates", ok.getBody().getMessage());
+
+		write("password-reset", "en", "html", "<p>{{}}</p>");
+		ResponseEntity<MessageResponse> failed = controller.reloadEmailTemplates();
+
+		Assertions.assertEquals(HttpStatus.BAD_REQUEST, failed.getStatusCode());
+		Assertions.assertFalse(failed.getBody().isSuccess());
+		Assertions.assertTrue(failed.getBody().getMessage().startsWith("Email template reload failed: Empty placeholder"),
+			failed.getBody().getMessage());
+		Assertions.assertEquals("<p>en 123456</p>", render(Locale.ENGLISH).html(), "The previous templates should stay in use");
+	}
+
+	private RenderedEmail render(Locale locale) {
+		return registry.render(VerificationToken.TokenType.PASSWORD_RESET, locale, VALUES);
+	}
+
+	private void write(String name, String locale, String part, String content) throws IOException {
+		Files.writeString(directory.resolve(name + "." + locale + "." + part), content, StandardCharsets.UTF_8);
+	}
+}
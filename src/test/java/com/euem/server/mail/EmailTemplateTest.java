@@ -0,0 +1,62 @@
+package com.euem.server.mail;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Map;
+
+class EmailTemplateTest {
+
+	private static final String UNSAFE = "<b>\"Tom\" & 'Jerry'</b>";
+
+	@Test
+	@DisplayName("Test placeholders are replaced and surrounding text kept")
+	void testRender() {
+		EmailTemplate template = EmailTemplate.compile("Code: {{code}}, valid {{ expiryMinutes }} min.", false);
+
+		Assertions.assertEquals("Code: 123456, valid 15 min.",
+			template.render(Map.of("code", "123456", "expiryMinutes", "15")));
+	}
+
+	@Test
+	@DisplayName("Test an unclosed placeholder is rejected")
+	void testUnclosedPlaceholder() {
+		IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+			() -> EmailTemplate.compile("Code: {{code", false));
+		Assertions.assertTrue(e.getMessage().contains("Unclosed"), e.getMessage());
+	}
+
+	@Test
+	@DisplayName("Test an empty placeholder is rejected")
+	void testEmptyPlaceholder() {
+		IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+			() -> EmailTemplate.compile("Code: {{  }}", false));
+		Assertions.assertTrue(e.getMessage().contains("Empty"), e.getMessage());
+	}
+
+	@Test
+	@DisplayName("Test rendering without a value for a placeholder fails")
+	void testMissingValue() {
+		EmailTemplate template = EmailTemplate.compile("Code: {{code}}", false);
+
+		IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+			() -> template.render(Map.of("other", "x")));
+		Assertions.assertTrue(e.getMessage().contains("code"), e.getMessage());
+	}
+
+	@Test
+	@DisplayName("Test values are escaped in HTML templates only")
+	void testHtmlEscaping() {
+		Map<String, String> values = Map.of("name", UNSAFE);
+
+		Assertions.assertEquals("<p>&lt;b&gt;&quot;Tom&quot; &amp; &#39;Jerry&#39;&lt;/b&gt;</p>",
+			EmailTemplate.compile("<p>{{name}}</p>", true).render(values));
+		Assertions.assertEquals("Hi " + UNSAFE, EmailTemplate.compile("Hi {{name}}", false).render(values));
+	}
+
+	@Test
+	@DisplayName("Test literal markup in an HTML template is not escaped")
+	void testLiteralsNotEscaped() {
+		Assertions.assertEquals("<p style=\"x\">a &amp; b</p>",
+			EmailTemplate.compile("<p style=\"x\">{{v}}</p>", true).render(Map.of("v", "a & b")));
+	}
+}
@@ -0,0 +1,63 @@
+package com.euem.server.mail;
+
+import com.euem.server.config.MailRelayProperties;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.*;
+import org.springframework.mail.MailSendException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SmtpRelayRouterTest {
+
+	private final Session session = Session.getInstance(new Properties());
+
+	@Test
+	@DisplayName("Test a probe that throws reopens the breaker instead of leaving it half-open")
+	void testProbeRuntimeFailureReopens() {
+		SmtpRelayRouter.Relay broken = relay("broken");
+		SmtpRelayRouter.Relay healthy = relay("healthy");
+		doThrow(new IllegalStateException("boom")).when(broken.pool()).send(anyList());
+		broken.health().recordFailure(0, System.nanoTime());
+		Assertions.assertEquals(RelayHealth.State.OPEN, broken.health().getState());
+
+		SmtpRelayRouter router = new SmtpRelayRouter(List.of(broken, healthy));
+		List<MimeMessage> messages = List.of(new MimeMessage(session), new MimeMessage(session));
+		router.send(messages);
+
+		Assertions.assertEquals(RelayHealth.State.OPEN, broken.health().getState());
+		Assertions.assertTrue(broken.health().tryProbe(System.nanoTime()), "The next probe should be let through");
+		verify(healthy.pool()).send(anyList());
+	}
+
+	@Test
+	@DisplayName("Test unexpected exceptions from every relay surface as a MailSendException")
+	void testRuntimeFailuresReported() {
+		SmtpRelayRouter.Relay first = relay("first");
+		SmtpRelayRouter.Relay second = relay("second");
+		doThrow(new IllegalStateException("boom")).when(first.pool()).send(anyList());
+		doThrow(new IllegalStateException("boom")).when(second.pool()).send(anyList());
+
+		SmtpRelayRouter router = new SmtpRelayRouter(List.of(first, second));
+		MailSendException e = Assertions.assertThrows(MailSendException.class,
+			() -> router.send(List.of(new MimeMessage(session))));
+
+		Assertions.assertEquals(1, e.getFailedMessages().size());
+		Assertions.assertEquals(RelayHealth.State.OPEN, first.health().getState());
+		Assertions.assertEquals(RelayHealth.State.OPEN, second.health().getState());
+	}
+
+	private static SmtpRelayRouter.Relay relay(String name) {
+		MailRelayProperties.Health settings = new MailRelayProperties.Health();
+		settings.setFailureThreshold(1);
+		settings.setOpenDuration(Duration.ZERO);
+		return new SmtpRelayRouter.Relay(name, 1.0, mock(SmtpTransportPool.class), new RelayHealth(settings));
+	}
+}
@@ -0,0 +1,63 @@
+package com.euem.server.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.*;
+import org.mockito.stubbing.Stubber;
+import org.springframework.mail.MailSendException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SmtpTransportPoolTest {
+
+	private static final int MAX_CONNECTIONS = 2;
+
+	private static final int DROPS = MAX_CONNECTIONS * 3;
+
+	private final Session messageSession = Session.getInstance(new Properties());
+
+	@Test
+	@DisplayName("Test connections dropped mid-send give their permits back")
+	void testDroppedConnectionsReleasePermits() throws Exception {
+		Transport transport = mock(Transport.class);
+		Session session = mock(Session.class);
+		when(session.getTransport("smtp")).thenReturn(transport);
+		when(transport.isConnected()).thenReturn(false);
+
+		Stubber stubbing = doThrow(new MessagingException("connection dropped"));
+		for (int i = 1; i < DROPS; i++) {
+			stubbing = stubbing.doThrow(new MessagingException("connection dropped"));
+		}
+		stubbing.doNothing().when(transport).sendMessage(any(), any());
+
+		SmtpTransportPool pool = new SmtpTransportPool("test", session, "smtp", "localhost", 25, null, null,
+			new SmtpTransportPool.Settings(MAX_CONNECTIONS, 100, Duration.ofMinutes(1), Duration.ofSeconds(5),
+				Duration.ofMillis(200)));
+
+		for (int i = 0; i < DROPS; i++) {
+			MailSendException e = Assertions.assertThrows(MailSendException.class, () -> pool.send(List.of(message())));
+			Assertions.assertInstanceOf(MessagingException.class, e.getFailedMessages().values().iterator().next());
+		}
+		Assertions.assertEquals(0, pool.getOpenConnections());
+
+		Assertions.assertDoesNotThrow(() -> pool.send(List.of(message())),
+			"A send after " + DROPS + " dropped connections should still get a connection");
+		Assertions.assertEquals(1, pool.getOpenConnections());
+		Assertions.assertEquals(1, pool.getIdleConnections());
+	}
+
+	private MimeMessage message() throws MessagingException {
+		MimeMessage message = new MimeMessage(messageSession);
+		message.setText("hello");
+		return message;
+	}
+}
@@ -0,0 +1,41 @@
+package com.euem.server.security;
+
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class BCryptCostCalibratorTest {
+
+	@Test
+	@DisplayName("Test fixed mode uses the configured strength")
+	void testFixedMode() {
+		BCryptCostCalibrator calibrator = newCalibrator("fixed", 250, 4, 6);
+
+		Assertions.assertEquals(12, calibrator.resolveStrength());
+	}
+
+	@Test
+	@DisplayName("Test calibration picks the highest cost within the target")
+	void testCalibratedUpToMax() {
+		BCryptCostCalibrator calibrator = newCalibrator("calibrated", 60_000, 4, 6);
+
+		Assertions.assertEquals(6, calibrator.resolveStrength(), "A generous target should reach max-strength");
+	}
+
+	@Test
+	@DisplayName("Test calibration never goes below min-strength")
+	void testCalibratedFloor() {
+		BCryptCostCalibrator calibrator = newCalibrator("calibrated", 0, 8, 10);
+
+		Assertions.assertEquals(8, calibrator.resolveStrength(), "An unreachable target should fall back to min-strength");
+	}
+
+	private static BCryptCostCalibrator newCalibrator(String mode, long targetMillis, int minStrength, int maxStrength) {
+		BCryptCostCalibrator calibrator = new BCryptCostCalibrator();
+		ReflectionTestUtils.setField(calibrator, "mode", mode);
+		ReflectionTestUtils.setField(calibrator, "strength", 12);
+		ReflectionTestUtils.setField(calibrator, "targetMillis", targetMillis);
+		ReflectionTestUtils.setField(calibrator, "minStrength", minStrength);
+		ReflectionTestUtils.setField(calibrator, "maxStrength", maxStrength);
+		return calibrator;
+	}
+}
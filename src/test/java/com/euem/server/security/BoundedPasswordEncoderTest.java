@@ -0,0 +1,84 @@
+package com.euem.server.security;
+
+import com.euem.server.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+class BoundedPasswordEncoderTest {
+
+	private static final String PASSWORD = "TestPassword123!";
+
+	private final PasswordHashingExecutor executor = new PasswordHashingExecutor();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(executor, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(executor, "threads", 1);
+		ReflectionTestUtils.setField(executor, "queueCapacity", 1);
+		ReflectionTestUtils.setField(executor, "timeoutMs", 200L);
+		ReflectionTestUtils.setField(executor, "retryAfterSeconds", 1L);
+		executor.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	@DisplayName("Test the wrapped encoder answers every call")
+	void testDelegatesThroughPool() {
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new CostAwareBCryptPasswordEncoder(5), executor);
+
+		String hash = encoder.encode(PASSWORD);
+
+		Assertions.assertTrue(encoder.matches(PASSWORD, hash));
+		Assertions.assertFalse(encoder.matches("WrongPassword123!", hash));
+		Assertions.assertFalse(encoder.upgradeEncoding(hash));
+		Assertions.assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD)));
+	}
+
+	@Test
+	@DisplayName("Test a slow hash surfaces as an overload instead of blocking the caller")
+	void testSlowHashTimesOut() {
+		CountDownLatch release = new CountDownLatch(1);
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new SlowPasswordEncoder(release), executor);
+
+		ServiceOverloadedException e = Assertions.assertThrows(ServiceOverloadedException.class,
+			() -> encoder.matches(PASSWORD, "hash"));
+
+		Assertions.assertInstanceOf(TimeoutException.class, e.getCause());
+		Assertions.assertEquals(1, e.getRetryAfterSeconds());
+		release.countDown();
+	}
+
+	private record SlowPasswordEncoder(CountDownLatch release) implements PasswordEncoder {
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			await();
+			return "hash";
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			await();
+			return true;
+		}
+
+		private void await() {
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
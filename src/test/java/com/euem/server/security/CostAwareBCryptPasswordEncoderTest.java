@@ -0,0 +1,42 @@
+package com.euem.server.security;
+
+import org.junit.jupiter.api.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class CostAwareBCryptPasswordEncoderTest {
+
+	private static final String PASSWORD = "TestPassword123!";
+
+	private final CostAwareBCryptPasswordEncoder encoder = new CostAwareBCryptPasswordEncoder(5);
+
+	@Test
+	@DisplayName("Test a hash below the configured cost is upgraded")
+	void testLowerCostUpgraded() {
+		Assertions.assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD)));
+	}
+
+	@Test
+	@DisplayName("Test hashes at or above the configured cost are kept")
+	void testSameOrHigherCostKept() {
+		Assertions.assertFalse(encoder.upgradeEncoding(encoder.encode(PASSWORD)));
+		Assertions.assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode(PASSWORD)),
+			"A stronger hash must not be downgraded");
+	}
+
+	@Test
+	@DisplayName("Test unparseable hashes are left alone")
+	void testMalformedNotUpgraded() {
+		Assertions.assertFalse(encoder.upgradeEncoding(null));
+		Assertions.assertFalse(encoder.upgradeEncoding(""));
+		Assertions.assertFalse(encoder.upgradeEncoding("plaintext"));
+		Assertions.assertFalse(encoder.upgradeEncoding("$2a$xx$abcdefghijklmnopqrstuv"));
+	}
+
+	@Test
+	@DisplayName("Test hashes of any cost still match")
+	void testMatchesAcrossCosts() {
+		Assertions.assertTrue(encoder.matches(PASSWORD, new BCryptPasswordEncoder(4).encode(PASSWORD)));
+		Assertions.assertTrue(encoder.matches(PASSWORD, new BCryptPasswordEncoder(6).encode(PASSWORD)));
+		Assertions.assertTrue(encoder.encode(PASSWORD).startsWith("$2a$05$"));
+	}
+}
@@ -0,0 +1,133 @@
+package com.euem.server.security;
+
+import com.euem.server.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.*;
+
+class PasswordHashingExecutorTest {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private PasswordHashingExecutor executor;
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		callers.shutdownNow();
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	@DisplayName("Test tasks run on the hashing pool and return their result")
+	void testExecute() {
+		executor = newExecutor(1, 1, 5000);
+
+		String threadName = executor.execute(() -> Thread.currentThread().getName());
+
+		Assertions.assertTrue(threadName.startsWith("password-hashing-"), "Ran on " + threadName);
+		Assertions.assertEquals(1, meterRegistry.get("euem.password.hashing.duration").timer().count());
+	}
+
+	@Test
+	@DisplayName("Test a full queue rejects new tasks straight away")
+	void testQueueFullRejected() throws Exception {
+		executor = newExecutor(1, 1, 5000);
+		CountDownLatch started = new CountDownLatch(1);
+
+		Future<Boolean> running = callers.submit(() -> executor.execute(() -> {
+			started.countDown();
+			return awaitRelease();
+		}));
+		Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<Boolean> queued = callers.submit(() -> executor.execute(this::awaitRelease));
+		awaitQueueDepth(1);
+
+		long startedAt = System.nanoTime();
+		ServiceOverloadedException e = Assertions.assertThrows(ServiceOverloadedException.class,
+			() -> executor.execute(() -> true));
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+		Assertions.assertInstanceOf(RejectedExecutionException.class, e.getCause());
+		Assertions.assertEquals(2, e.getRetryAfterSeconds());
+		Assertions.assertTrue(elapsedMillis < 1000, "Rejection should not wait for the timeout, took " + elapsedMillis);
+		Assertions.assertEquals(1.0, meterRegistry.get("euem.password.hashing.rejected").counter().count());
+
+		release.countDown();
+		Assertions.assertTrue(running.get(5, TimeUnit.SECONDS));
+		Assertions.assertTrue(queued.get(5, TimeUnit.SECONDS), "Tasks already queued should still complete");
+	}
+
+	@Test
+	@DisplayName("Test a task that exceeds the timeout is cancelled")
+	void testTimeout() throws Exception {
+		executor = newExecutor(1, 1, 200);
+		CountDownLatch interrupted = new CountDownLatch(1);
+
+		ServiceOverloadedException e = Assertions.assertThrows(ServiceOverloadedException.class,
+			() -> executor.execute(() -> {
+				try {
+					return release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException ie) {
+					interrupted.countDown();
+					return false;
+				}
+			}));
+
+		Assertions.assertInstanceOf(TimeoutException.class, e.getCause());
+		Assertions.assertTrue(interrupted.await(5, TimeUnit.SECONDS), "The timed out task should be interrupted");
+		Assertions.assertEquals(1.0, meterRegistry.get("euem.password.hashing.rejected").counter().count());
+		Assertions.assertTrue(executor.execute(() -> true), "The pool thread should be free again");
+	}
+
+	@Test
+	@DisplayName("Test exceptions thrown by the task reach the caller unchanged")
+	void testTaskExceptionPropagated() {
+		executor = newExecutor(1, 1, 5000);
+
+		IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+			() -> executor.execute(() -> {
+				throw new IllegalArgumentException("Malformed hash");
+			}));
+
+		Assertions.assertEquals("Malformed hash", e.getMessage());
+		Assertions.assertEquals(0.0, meterRegistry.get("euem.password.hashing.rejected").counter().count());
+	}
+
+	private boolean awaitRelease() {
+		try {
+			return release.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void awaitQueueDepth(int depth) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (meterRegistry.get("euem.password.hashing.queue.depth").gauge().value() < depth) {
+			Assertions.assertTrue(System.currentTimeMillis() < deadline, "Task was never queued");
+			Thread.sleep(10);
+		}
+	}
+
+	private PasswordHashingExecutor newExecutor(int threads, int queueCapacity, long timeoutMs) {
+		PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor();
+		ReflectionTestUtils.setField(hashingExecutor, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(hashingExecutor, "threads", threads);
+		ReflectionTestUtils.setField(hashingExecutor, "queueCapacity", queueCapacity);
+		ReflectionTestUtils.setField(hashingExecutor, "timeoutMs", timeoutMs);
+		ReflectionTestUtils.setField(hashingExecutor, "retryAfterSeconds", 2L);
+		hashingExecutor.init();
+		return hashingExecutor;
+	}
+}
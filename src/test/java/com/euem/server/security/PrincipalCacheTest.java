@@ -0,0 +1,122 @@
+package com.euem.server.security;
+
+import com.euem.server.entity.Role;
+import com.euem.server.entity.User;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class PrincipalCacheTest {
+
+	private static final String EMAIL = "principal-cache@euem.net";
+
+	private PrincipalCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = newCache(100, 300);
+	}
+
+	@Test
+	@DisplayName("Test a cached principal is returned without reloading")
+	void testHit() {
+		AtomicInteger loads = new AtomicInteger();
+
+		CustomUserPrincipal first = cache.get(EMAIL, () -> load(loads, true));
+		CustomUserPrincipal second = cache.get(EMAIL.toUpperCase(), () -> load(loads, true));
+
+		Assertions.assertSame(first, second, "Keys should be normalized");
+		Assertions.assertEquals(1, loads.get());
+		Assertions.assertEquals(0.5, cache.hitRatio());
+	}
+
+	@Test
+	@DisplayName("Test evict forces the next lookup to reload")
+	void testEvictReloads() {
+		AtomicInteger loads = new AtomicInteger();
+		cache.get(EMAIL, () -> load(loads, true));
+
+		cache.evict(" " + EMAIL.toUpperCase() + " ");
+		CustomUserPrincipal reloaded = cache.get(EMAIL, () -> load(loads, false));
+
+		Assertions.assertEquals(2, loads.get());
+		Assertions.assertFalse(reloaded.isEnabled(), "The reloaded state should be served");
+		Assertions.assertEquals(1, cache.getInvalidationCount());
+	}
+
+	@Test
+	@DisplayName("Test a load overtaken by an evict is returned but not cached")
+	void testEvictDuringLoadNotCached() {
+		AtomicInteger loads = new AtomicInteger();
+
+		// The change commits and evicts while this load still holds the pre-commit state
+		CustomUserPrincipal stale = cache.get(EMAIL, () -> {
+			CustomUserPrincipal principal = load(loads, true);
+			cache.evict(EMAIL);
+			return principal;
+		});
+
+		Assertions.assertTrue(stale.isEnabled());
+		Assertions.assertEquals(0, cache.size(), "The stale principal must not be cached");
+		Assertions.assertFalse(cache.get(EMAIL, () -> load(loads, false)).isEnabled());
+		Assertions.assertEquals(1, cache.size(), "A load without a concurrent evict should be cached again");
+	}
+
+	@Test
+	@DisplayName("Test clear during a load prevents caching it")
+	void testClearDuringLoadNotCached() {
+		cache.get(EMAIL, () -> {
+			CustomUserPrincipal principal = load(new AtomicInteger(), true);
+			cache.clear();
+			return principal;
+		});
+
+		Assertions.assertEquals(0, cache.size());
+	}
+
+	@Test
+	@DisplayName("Test entries expire after the TTL")
+	void testExpiry() throws InterruptedException {
+		cache = newCache(100, 1);
+		AtomicInteger loads = new AtomicInteger();
+		cache.get(EMAIL, () -> load(loads, true));
+
+		Thread.sleep(1100);
+		cache.get(EMAIL, () -> load(loads, true));
+
+		Assertions.assertEquals(2, loads.get(), "An expired entry should be reloaded");
+		Assertions.assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	@DisplayName("Test the cache stays within max-size")
+	void testBounded() {
+		cache = newCache(8, 300);
+		for (int i = 0; i < 50; i++) {
+			cache.get(i + "-" + EMAIL, () -> load(new AtomicInteger(), true));
+		}
+
+		Assertions.assertTrue(cache.size() <= 8, "Size " + cache.size() + " should not exceed max-size");
+		Assertions.assertTrue(cache.getEvictionCount() > 0);
+	}
+
+	private static PrincipalCache newCache(int maxSize, long ttlSeconds) {
+		PrincipalCache cache = new PrincipalCache();
+		ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+		ReflectionTestUtils.setField(cache, "ttlSeconds", ttlSeconds);
+		return cache;
+	}
+
+	private static CustomUserPrincipal load(AtomicInteger loads, boolean enabled) {
+		loads.incrementAndGet();
+		User user = new User();
+		user.setId(UUID.randomUUID());
+		user.setEmail(EMAIL);
+		user.setPassword("hash");
+		user.setIsEnabled(enabled);
+		user.setRoleMask(Role.RoleName.USER.bit());
+		return CustomUserPrincipal.create(user);
+	}
+}
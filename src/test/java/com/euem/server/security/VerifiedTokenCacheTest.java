@@ -0,0 +1,101 @@
+package com.euem.server.security;
+
+import com.euem.server.entity.Role;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+
+class VerifiedTokenCacheTest {
+
+	private static final String DIGEST = "digest";
+
+	private VerifiedTokenCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = newCache(100);
+	}
+
+	@Test
+	@DisplayName("Test a verified token is served until it is cleared")
+	void testHitAndMiss() {
+		JwtClaims claims = claims(Duration.ofMinutes(15));
+
+		Assertions.assertNull(cache.get(DIGEST));
+		cache.put(DIGEST, claims);
+		Assertions.assertSame(claims, cache.get(DIGEST));
+		Assertions.assertNull(cache.get("other-digest"));
+
+		cache.clear();
+		Assertions.assertNull(cache.get(DIGEST));
+		Assertions.assertEquals(1, cache.getHitCount());
+		Assertions.assertEquals(3, cache.getMissCount());
+	}
+
+	@Test
+	@DisplayName("Test an entry stops being served at the token's exp")
+	void testExpiresWithToken() throws InterruptedException {
+		cache.put(DIGEST, claims(Duration.ofSeconds(1)));
+		Assertions.assertNotNull(cache.get(DIGEST));
+
+		Thread.sleep(1100);
+
+		Assertions.assertNull(cache.get(DIGEST), "An expired token must be verified again");
+		Assertions.assertEquals(0, cache.size(), "The expired entry should be dropped on lookup");
+	}
+
+	@Test
+	@DisplayName("Test tokens without exp and a disabled cache store nothing")
+	void testNotCached() {
+		cache.put(DIGEST, new JwtClaims("user@euem.net", Instant.now(), null, UUID.randomUUID(), Set.of(Role.RoleName.USER), 0));
+		Assertions.assertEquals(0, cache.size());
+
+		cache = newCache(0);
+		cache.put(DIGEST, claims(Duration.ofMinutes(15)));
+		Assertions.assertEquals(0, cache.size());
+	}
+
+	@Test
+	@DisplayName("Test the cache stays within max-size")
+	void testBounded() {
+		cache = newCache(8);
+		for (int i = 0; i < 50; i++) {
+			cache.put(DIGEST + i, claims(Duration.ofMinutes(15)));
+		}
+
+		Assertions.assertTrue(cache.size() <= 8, "Size " + cache.size() + " should not exceed max-size");
+		Assertions.assertNotNull(cache.get(DIGEST + 49), "The newest token should be cached");
+	}
+
+	@Test
+	@DisplayName("Test expired tokens are dropped before live ones when full")
+	void testExpiredDroppedFirst() {
+		cache = newCache(8);
+		for (int i = 0; i < 4; i++) {
+			cache.put("live" + i, claims(Duration.ofMinutes(15)));
+			cache.put("expired" + i, claims(Duration.ofSeconds(-1)));
+		}
+
+		cache.put(DIGEST, claims(Duration.ofMinutes(15)));
+
+		Assertions.assertEquals(5, cache.size());
+		for (int i = 0; i < 4; i++) {
+			Assertions.assertNotNull(cache.get("live" + i), "Live tokens should survive while expired ones can go");
+		}
+	}
+
+	private static VerifiedTokenCache newCache(int maxSize) {
+		VerifiedTokenCache cache = new VerifiedTokenCache();
+		ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+		return cache;
+	}
+
+	private static JwtClaims claims(Duration validFor) {
+		Instant now = Instant.now();
+		return new JwtClaims("user@euem.net", now, now.plus(validFor), UUID.randomUUID(), Set.of(Role.RoleName.USER), 0);
+	}
+}
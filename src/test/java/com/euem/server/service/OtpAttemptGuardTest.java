@@ -0,0 +1,135 @@
+package com.euem.server.service;
+
+import com.euem.server.exception.TooManyAttemptsException;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+class OtpAttemptGuardTest {
+
+	private static final String ACCOUNT = "otp-guard@euem.net";
+	private static final String IP = "203.0.113.7";
+
+	private OtpAttemptGuard guard;
+
+	@BeforeEach
+	void setUp() {
+		guard = newGuard(100, 900, 60);
+	}
+
+	@Test
+	@DisplayName("Test an account is locked after max failures and others are not")
+	void testLockout() {
+		fail(ACCOUNT, IP, 3);
+
+		TooManyAttemptsException e = Assertions.assertThrows(TooManyAttemptsException.class,
+			() -> guard.checkAllowed(ACCOUNT, IP));
+		Assertions.assertTrue(e.getRetryAfterSeconds() > 0);
+		Assertions.assertDoesNotThrow(() -> guard.checkAllowed("other@euem.net", IP));
+	}
+
+	@Test
+	@DisplayName("Test an IP is locked across accounts")
+	void testIpLockout() {
+		for (int i = 0; i < 20; i++) {
+			guard.recordFailure(i + "-" + ACCOUNT, IP);
+		}
+
+		Assertions.assertThrows(TooManyAttemptsException.class, () -> guard.checkAllowed("fresh@euem.net", IP));
+		Assertions.assertDoesNotThrow(() -> guard.checkAllowed("fresh@euem.net", "198.51.100.1"));
+	}
+
+	@Test
+	@DisplayName("Test a success clears the account's failures")
+	void testSuccessResets() {
+		fail(ACCOUNT, null, 2);
+		guard.recordSuccess(ACCOUNT);
+		fail(ACCOUNT, null, 2);
+
+		Assertions.assertDoesNotThrow(() -> guard.checkAllowed(ACCOUNT, null));
+	}
+
+	@Test
+	@DisplayName("Test failures decay while the key is not locked")
+	void testDecay() throws InterruptedException {
+		guard = newGuard(100, 900, 1);
+		fail(ACCOUNT, null, 2);
+
+		Thread.sleep(2100);
+		fail(ACCOUNT, null, 2);
+
+		Assertions.assertDoesNotThrow(() -> guard.checkAllowed(ACCOUNT, null), "Earlier failures should have decayed");
+	}
+
+	@Test
+	@DisplayName("Test a lockout lapses after lockout-seconds")
+	void testLockoutLapses() throws InterruptedException {
+		guard = newGuard(100, 2, 60);
+		fail(ACCOUNT, null, 3);
+		Assertions.assertThrows(TooManyAttemptsException.class, () -> guard.checkAllowed(ACCOUNT, null));
+
+		Thread.sleep(3100);
+
+		Assertions.assertDoesNotThrow(() -> guard.checkAllowed(ACCOUNT, null));
+		Assertions.assertEquals(0, attempts().size(), "A lapsed key should be dropped on check");
+	}
+
+	@Test
+	@DisplayName("Test making room never evicts a locked key and sheds the lowest counts first")
+	void testEvictionKeepsLockouts() {
+		guard = newGuard(8, 900, 60);
+		fail(ACCOUNT, null, 3);
+		fail("two@euem.net", null, 2);
+		for (int i = 0; i < 50; i++) {
+			guard.recordFailure(i + "-" + ACCOUNT, null);
+		}
+
+		Assertions.assertTrue(attempts().size() <= 8, "Size " + attempts().size() + " should not exceed max-keys");
+		Assertions.assertThrows(TooManyAttemptsException.class, () -> guard.checkAllowed(ACCOUNT, null),
+			"The lockout must survive eviction");
+		Assertions.assertTrue(attempts().containsKey("account:two@euem.net"), "Higher counts should be shed last");
+	}
+
+	@Test
+	@DisplayName("Test a map full of lockouts still tracks new keys by dropping the oldest lockout")
+	void testFullOfLockoutsAdmitsNewKeys() {
+		guard = newGuard(4, 900, 60);
+		for (int i = 0; i < 4; i++) {
+			fail(i + "-" + ACCOUNT, null, 3);
+		}
+
+		Assertions.assertDoesNotThrow(() -> guard.checkAllowed("new@euem.net", null));
+		fail("new@euem.net", null, 3);
+
+		Assertions.assertThrows(TooManyAttemptsException.class, () -> guard.checkAllowed("new@euem.net", null),
+			"Failures of a new key must be counted while the map is full");
+		Assertions.assertTrue(attempts().size() <= 4, "Size " + attempts().size() + " should not exceed max-keys");
+		long lockoutsKept = IntStream.range(0, 4)
+			.filter(i -> attempts().containsKey("account:" + i + "-" + ACCOUNT))
+			.count();
+		Assertions.assertEquals(3, lockoutsKept, "Only as many lockouts as needed should be dropped");
+	}
+
+	private void fail(String account, String ip, int times) {
+		for (int i = 0; i < times; i++) {
+			guard.recordFailure(account, ip);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<String, ?> attempts() {
+		return (Map<String, ?>) ReflectionTestUtils.getField(guard, "attempts");
+	}
+
+	private static OtpAttemptGuard newGuard(int maxKeys, long lockoutSeconds, long decaySeconds) {
+		OtpAttemptGuard guard = new OtpAttemptGuard();
+		ReflectionTestUtils.setField(guard, "maxFailuresPerUser", 3);
+		ReflectionTestUtils.setField(guard, "maxFailuresPerIp", 20);
+		ReflectionTestUtils.setField(guard, "lockoutSeconds", lockoutSeconds);
+		ReflectionTestUtils.setField(guard, "decaySeconds", decaySeconds);
+		ReflectionTestUtils.setField(guard, "maxKeys", maxKeys);
+		return guard;
+	}
+}
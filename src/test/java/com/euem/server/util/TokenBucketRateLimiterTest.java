@@ -0,0 +1,103 @@
+package com.euem.server.util;
+
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+class TokenBucketRateLimiterTest {
+
+	private static final Duration HOUR = Duration.ofHours(1);
+
+	private final AtomicLong nanoTime = new AtomicLong();
+
+	@Test
+	@DisplayName("Test a bucket grants its capacity and then reports the wait")
+	void testCapacity() {
+		TokenBucketRateLimiter limiter = limiter(100);
+
+		Assertions.assertEquals(0, limiter.tryAcquire("key", 2, HOUR));
+		Assertions.assertEquals(0, limiter.tryAcquire("key", 2, HOUR));
+		long waitMillis = limiter.tryAcquire("key", 2, HOUR);
+
+		Assertions.assertEquals(HOUR.toMillis() / 2, waitMillis, "One permit refills every half hour");
+	}
+
+	@Test
+	@DisplayName("Test a bucket refills over its period")
+	void testRefill() {
+		TokenBucketRateLimiter limiter = limiter(100);
+		Duration period = Duration.ofMillis(200);
+		limiter.tryAcquire("key", 1, period);
+		Assertions.assertEquals(200, limiter.tryAcquire("key", 1, period));
+
+		advance(Duration.ofMillis(250));
+
+		Assertions.assertEquals(0, limiter.tryAcquire("key", 1, period));
+	}
+
+	@Test
+	@DisplayName("Test a full limiter admits new keys by shedding the least depleted bucket")
+	void testFullShedsLeastDepleted() {
+		TokenBucketRateLimiter limiter = limiter(2);
+		limiter.tryAcquire("exhausted", 2, HOUR);
+		limiter.tryAcquire("exhausted", 2, HOUR);
+		limiter.tryAcquire("touched", 2, HOUR);
+
+		Assertions.assertEquals(0, limiter.tryAcquire("new", 2, HOUR), "A new key should be admitted while full");
+		Assertions.assertTrue(limiter.tryAcquire("exhausted", 2, HOUR) > 0, "The most depleted bucket must be kept");
+		Assertions.assertEquals(2, limiter.size());
+	}
+
+	@Test
+	@DisplayName("Test a flood of fresh keys cannot lock out other new keys")
+	void testFloodDoesNotRefuseNewKeys() {
+		TokenBucketRateLimiter limiter = limiter(64);
+		limiter.tryAcquire("victim", 1, HOUR);
+
+		for (int i = 0; i < 1000; i++) {
+			Assertions.assertEquals(0, limiter.tryAcquire("flood-" + i, 2, HOUR), "Flood key " + i + " was refused");
+		}
+
+		Assertions.assertEquals(0, limiter.tryAcquire("legitimate", 2, HOUR));
+		Assertions.assertTrue(limiter.tryAcquire("victim", 1, HOUR) > 0, "An exhausted bucket should outlive the flood");
+		Assertions.assertTrue(limiter.size() <= 64);
+	}
+
+	@Test
+	@DisplayName("Test making room drops idle buckets only")
+	void testIdleBucketsEvicted() {
+		TokenBucketRateLimiter limiter = limiter(2);
+		limiter.tryAcquire("idle", 1, Duration.ofMillis(100));
+		limiter.tryAcquire("limited", 1, HOUR);
+
+		advance(Duration.ofMillis(150));
+
+		Assertions.assertEquals(0, limiter.tryAcquire("new", 1, HOUR), "The idle bucket should make room");
+		Assertions.assertTrue(limiter.tryAcquire("limited", 1, HOUR) > 0, "The limited bucket should be kept");
+		Assertions.assertEquals(2, limiter.size());
+	}
+
+	@Test
+	@DisplayName("Test reserved slots are spaced one interval apart and newcomers queue behind them")
+	void testReserve() {
+		TokenBucketRateLimiter limiter = limiter(100);
+		Duration period = Duration.ofSeconds(10);
+		limiter.tryAcquire("key", 1, period);
+
+		long first = limiter.reserve("key", 1, period, limiter.tryAcquire("key", 1, period));
+		long second = limiter.reserve("key", 1, period, limiter.tryAcquire("key", 1, period));
+
+		Assertions.assertEquals(10_000, first, "First slot after one interval");
+		Assertions.assertEquals(20_000, second, "Second slot one interval later");
+		Assertions.assertTrue(limiter.tryAcquire("key", 1, period) >= second, "A newcomer should wait behind the queue");
+	}
+
+	private TokenBucketRateLimiter limiter(int maxKeys) {
+		return new TokenBucketRateLimiter(maxKeys, nanoTime::get);
+	}
+
+	private void advance(Duration duration) {
+		nanoTime.addAndGet(duration.toNanos());
+	}
+}